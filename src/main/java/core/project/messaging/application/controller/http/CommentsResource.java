@@ -2,6 +2,7 @@ package core.project.messaging.application.controller.http;
 
 import core.project.messaging.application.dto.articles.CommentForm;
 import core.project.messaging.application.service.CommentsApplicationService;
+import core.project.messaging.infrastructure.security.RateLimited;
 import io.quarkus.security.Authenticated;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.Response;
@@ -9,6 +10,7 @@ import org.eclipse.microprofile.jwt.JsonWebToken;
 
 import static core.project.messaging.application.controller.http.ArticlesResource.nonNull;
 
+@RateLimited
 @Authenticated
 @Path("/articles/comments")
 public class CommentsResource {
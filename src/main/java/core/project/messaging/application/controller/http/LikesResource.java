@@ -1,6 +1,7 @@
 package core.project.messaging.application.controller.http;
 
 import core.project.messaging.domain.articles.services.ArticlesService;
+import core.project.messaging.infrastructure.security.RateLimited;
 import io.quarkus.security.Authenticated;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.POST;
@@ -11,6 +12,7 @@ import org.eclipse.microprofile.jwt.JsonWebToken;
 
 import static core.project.messaging.application.controller.http.ArticlesResource.nonNull;
 
+@RateLimited
 @Authenticated
 @Path("/articles/likes")
 public class LikesResource {
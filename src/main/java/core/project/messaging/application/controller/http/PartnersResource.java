@@ -1,6 +1,7 @@
 package core.project.messaging.application.controller.http;
 
 import core.project.messaging.application.service.PartnersService;
+import core.project.messaging.domain.user.enumerations.PartnersOrder;
 import io.quarkus.security.Authenticated;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.Response;
@@ -23,8 +24,16 @@ public class PartnersResource {
 
     @GET
     @Path("/partners")
-    public Response partners(@QueryParam("pageNumber") int pageNumber, @QueryParam("pageSize") int pageSize) {
-        return Response.ok(partnersService.listOfPartners(jwt.getName(), pageNumber, pageSize)).build();
+    public Response partners(@QueryParam("order") PartnersOrder order,
+                             @QueryParam("cursor") String cursor,
+                             @QueryParam("pageSize") int pageSize) {
+        return Response.ok(partnersService.listOfPartners(jwt.getName(), order, cursor, pageSize)).build();
+    }
+
+    @GET
+    @Path("/partners/suggestions")
+    public Response suggestions(@QueryParam("limit") int limit) {
+        return Response.ok(partnersService.suggestions(jwt.getName(), limit)).build();
     }
 
     @DELETE
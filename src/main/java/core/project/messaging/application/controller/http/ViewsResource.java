@@ -1,6 +1,7 @@
 package core.project.messaging.application.controller.http;
 
 import core.project.messaging.domain.articles.services.ArticlesService;
+import core.project.messaging.infrastructure.security.RateLimited;
 import io.quarkus.security.Authenticated;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.Path;
@@ -10,6 +11,7 @@ import org.eclipse.microprofile.jwt.JsonWebToken;
 
 import static core.project.messaging.application.controller.http.ArticlesResource.nonNull;
 
+@RateLimited
 @Authenticated
 @Path("/articles/views")
 public class ViewsResource {
@@ -1,61 +1,106 @@
 package core.project.messaging.application.controller.ws;
 
 import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.application.dto.messaging.SystemMessages;
 import core.project.messaging.application.service.UserSessionService;
 import core.project.messaging.application.service.WSAuthService;
 import core.project.messaging.domain.commons.containers.Result;
 import core.project.messaging.domain.user.entities.User;
 import core.project.messaging.domain.user.value_objects.Username;
+import core.project.messaging.infrastructure.ws.Heartbeats;
+import core.project.messaging.infrastructure.ws.MailboxDispatcher;
+import core.project.messaging.infrastructure.ws.MessageBinaryDecoder;
 import core.project.messaging.infrastructure.ws.MessageDecoder;
 import core.project.messaging.infrastructure.ws.MessageEncoder;
+import core.project.messaging.infrastructure.ws.OutboundQueues;
 import core.project.messaging.infrastructure.ws.RateLimiter;
+import core.project.messaging.infrastructure.ws.SessionDrain;
+import core.project.messaging.infrastructure.ws.SessionMailbox;
 import io.opentelemetry.api.trace.Span;
 import io.opentelemetry.instrumentation.annotations.WithSpan;
+import jakarta.websocket.DecodeException;
 import jakarta.websocket.OnClose;
 import jakarta.websocket.OnMessage;
 import jakarta.websocket.OnOpen;
+import jakarta.websocket.PongMessage;
 import jakarta.websocket.Session;
 import jakarta.websocket.server.ServerEndpoint;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 import static core.project.messaging.application.util.WSUtilities.closeSession;
 import static core.project.messaging.application.util.WSUtilities.sendMessage;
 
-@ServerEndpoint(value = "/chessland/user-session", decoders = MessageDecoder.class, encoders = MessageEncoder.class)
+@ServerEndpoint(value = "/chessland/user-session",
+        subprotocols = {"json", "cbor"},
+        decoders = MessageDecoder.class,
+        encoders = MessageEncoder.class)
 public class UserSessionHandler {
 
+    private static final MessageBinaryDecoder binaryDecoder = new MessageBinaryDecoder();
+
     private final WSAuthService authService;
 
     private final RateLimiter rateLimiter;
 
+    private final OutboundQueues outboundQueues;
+
+    private final MailboxDispatcher dispatcher;
+
+    private final Heartbeats heartbeats;
+
+    private final SessionDrain sessionDrain;
+
     private final UserSessionService userSessionService;
 
     UserSessionHandler(RateLimiter rateLimiter,
                        WSAuthService authService,
+                       OutboundQueues outboundQueues,
+                       MailboxDispatcher dispatcher,
+                       Heartbeats heartbeats,
+                       SessionDrain sessionDrain,
                        UserSessionService userSessionService) {
         this.rateLimiter = rateLimiter;
         this.authService = authService;
+        this.outboundQueues = outboundQueues;
+        this.dispatcher = dispatcher;
+        this.heartbeats = heartbeats;
+        this.sessionDrain = sessionDrain;
         this.userSessionService = userSessionService;
     }
 
     @OnOpen
     @WithSpan("MESSAGING OPEN")
     public final void onOpen(Session session) {
-        Thread.startVirtualThread(() ->
+        if (sessionDrain.isDraining()) {
+            sessionDrain.refuse(session);
+            return;
+        }
+
+        outboundQueues.attach(session);
+        heartbeats.attach(session, () -> onClose(session));
+        dispatcher.attach(session).submitAlways(() ->
                 authService.validateToken(session)
                         .handle(token -> userSessionService.onOpen(session, new Username(token.getName())),
                                 throwable -> closeSession(session, Message.error(throwable.getLocalizedMessage())))
         );
     }
 
-    @OnMessage
+    @OnMessage(maxMessageSize = 4 * MessageDecoder.MAX_LENGTH)
     @WithSpan("MESSAGING MESSAGE")
     public final void onMessage(Session session, Message message) {
         Span.current().setAttribute("message.type", message.type().name());
+        Heartbeats.touch(session);
 
-        Thread.startVirtualThread(() -> {
+        Optional<SessionMailbox> mailbox = MailboxDispatcher.of(session);
+        if (mailbox.isEmpty()) {
+            closeSession(session, Message.error("Session is not initialized."));
+            return;
+        }
+
+        final boolean isAccepted = mailbox.get().submit(() -> {
             Result<JsonWebToken, IllegalStateException> parseResult = authService.validateToken(session);
             if (!parseResult.success()) {
                 closeSession(session, Message.error(parseResult.throwable().getLocalizedMessage()));
@@ -70,22 +115,50 @@ public class UserSessionHandler {
             }
 
             User user = findUser.get();
-            final boolean isRateDoNotLimited = rateLimiter.tryAcquire(user);
+            final boolean isRateDoNotLimited = rateLimiter.tryAcquire(user, message.type());
             if (!isRateDoNotLimited) {
-                sendMessage(session, Message.error("You expose of message limits per time unit."));
+                sendMessage(session, SystemMessages.RATE_LIMITED);
                 return;
             }
 
             userSessionService.onMessage(session, username, message);
         });
+
+        if (!isAccepted) sendMessage(session, SystemMessages.SERVER_BUSY);
+    }
+
+    /**
+     * Binary frames of CBOR clients. Container rejects frames above the limit before buffering them.
+     */
+    @OnMessage(maxMessageSize = MessageBinaryDecoder.MAX_LENGTH)
+    @WithSpan("MESSAGING BINARY MESSAGE")
+    public final void onBinaryMessage(Session session, ByteBuffer frame) {
+        Message message;
+        try {
+            message = binaryDecoder.decode(frame);
+        } catch (DecodeException e) {
+            sendMessage(session, SystemMessages.INVALID_MESSAGE);
+            return;
+        }
+
+        onMessage(session, message);
+    }
+
+    @OnMessage
+    public final void onPong(Session session, PongMessage pong) {
+        Heartbeats.touch(session);
     }
 
     @OnClose
     @WithSpan("MESSAGING CLOSE")
     public final void onClose(Session session) {
-        authService.validateToken(session).handle(
-                token -> userSessionService.onClose(session, new Username(token.getName())),
-                throwable -> closeSession(session, Message.error(throwable.getLocalizedMessage()))
-        );
+        heartbeats.detach(session);
+        authService.detach(session);
+        outboundQueues.detach(session);
+        Runnable close = () -> userSessionService
+                .extractAccount(session)
+                .ifPresent(user -> userSessionService.onClose(session, user.username()));
+
+        MailboxDispatcher.of(session).ifPresentOrElse(mailbox -> mailbox.submitAlways(close), close);
     }
 }
\ No newline at end of file
@@ -3,15 +3,36 @@ package core.project.messaging.application.dto.messaging;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import core.project.messaging.application.util.JSONUtilities;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
+/**
+ * @param requestId client supplied id of a {@link MessageType#REQUEST} or a partnership message, echoed in its reply
+ * @param operation operation of a {@link MessageType#REQUEST}
+ * @param params    arguments of the operation, named as query parameters of the HTTP endpoints
+ * @param result    payload of a {@link MessageType#RESULT}
+ */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public record Message(MessageType type, String message, String partner) {
+public record Message(MessageType type,
+                      String message,
+                      String partner,
+                      List<Message> items,
+                      Boolean hasMore,
+                      Long seq,
+                      String requestId,
+                      Operation operation,
+                      Map<String, String> params,
+                      RequestResult result) {
 
     public Message  {
         Objects.requireNonNull(type, "Type cannot be null.");
     }
 
+    public Message(MessageType type, String message, String partner) {
+        this(type, message, partner, null, null, null, null, null, null, null);
+    }
+
     public static Message error(String message) {
         return new Message(MessageType.ERROR, message, null);
     }
@@ -28,9 +49,95 @@ public record Message(MessageType type, String message, String partner) {
         return new Message(MessageType.PARTNERSHIP_REQUEST, message, partner);
     }
 
+    /**
+     * Page of pending partnership requests, client sends {@link MessageType#INBOX_NEXT} to receive the next one.
+     */
+    public static Message inbox(List<Message> requests, boolean hasMore) {
+        return new Message(MessageType.INBOX, null, null, requests, hasMore, null, null, null, null, null);
+    }
+
+    public static Message presence(String partner, boolean isOnline) {
+        return new Message(MessageType.PRESENCE, isOnline ? "ONLINE" : "OFFLINE", partner);
+    }
+
+    /**
+     * Articles published by the partner, every item carries id of one article.
+     */
+    public static Message articlesPublished(String author, List<String> articleIds) {
+        List<Message> articles = articleIds.stream()
+                .map(id -> new Message(MessageType.ARTICLES_PUBLISHED, id, null))
+                .toList();
+
+        return new Message(MessageType.ARTICLES_PUBLISHED, null, author, articles, null, null, null, null, null, null);
+    }
+
+    /**
+     * Chat messages of the conversation with the partner, every item carries text and sequence number
+     * of one message within the conversation.
+     */
+    public static Message chat(String partner, List<Message> messages, Boolean hasMore) {
+        return new Message(MessageType.CHAT, null, partner, messages, hasMore, null, null, null, null, null);
+    }
+
+    /**
+     * Single message of the conversation, an item of {@link #chat(String, List, Boolean)}.
+     */
+    public static Message chatItem(String sender, String text, long seq) {
+        return new Message(MessageType.CHAT, text, sender, null, null, seq, null, null, null, null);
+    }
+
+    /**
+     * Token which allows client to resume the session after reconnect, see {@link MessageType#RESUME}.
+     */
+    public static Message resume(String token, long seq) {
+        return new Message(MessageType.RESUME, token, null, null, null, seq, null, null, null, null);
+    }
+
+    /**
+     * Successful result of the request without payload.
+     */
+    public static Message result(String requestId) {
+        return result(requestId, null);
+    }
+
+    /**
+     * Successful result of the request, {@code result} is absent for operations without payload.
+     */
+    public static Message result(String requestId, RequestResult result) {
+        return new Message(MessageType.RESULT, "OK", null, null, null, null, requestId, null, null, result);
+    }
+
+    /**
+     * Failed result of the request.
+     */
+    public static Message error(String requestId, String message) {
+        return new Message(MessageType.ERROR, message, null, null, null, null, requestId, null, null, null);
+    }
+
+    /**
+     * Sent in close reason when the node goes down, client should reconnect after the specified count of milliseconds.
+     */
+    public static Message reconnect(long delayMillis) {
+        return new Message(MessageType.RECONNECT, String.valueOf(delayMillis), null);
+    }
+
+    /**
+     * Copy of the message with sequence number of the user stream.
+     */
+    public Message withSeq(long seq) {
+        return new Message(type, message, partner, items, hasMore, seq, requestId, operation, params, result);
+    }
+
+    /**
+     * Copy of the message correlated with the client request.
+     */
+    public Message withRequestId(String requestId) {
+        return new Message(type, message, partner, items, hasMore, seq, requestId, operation, params, result);
+    }
+
     @Override
     public String toString() {
-        return JSONUtilities.writeMessage(this);
+        return JSONUtilities.writeJSON(this);
     }
 
     public String asJSON() {
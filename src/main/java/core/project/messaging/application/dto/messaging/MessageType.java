@@ -1,5 +1,6 @@
 package core.project.messaging.application.dto.messaging;
 
 public enum MessageType {
-    ERROR, INFO, USER_INFO, PARTNERSHIP_REQUEST, PARTNERSHIP_DECLINE
+    ERROR, INFO, USER_INFO, PARTNERSHIP_REQUEST, PARTNERSHIP_DECLINE, INBOX, INBOX_NEXT, PRESENCE, RESUME,
+    ARTICLES_PUBLISHED, RECONNECT, REQUEST, RESULT, CHAT, CHAT_HISTORY
 }
@@ -0,0 +1,9 @@
+package core.project.messaging.application.dto.messaging;
+
+/**
+ * Operations which connected clients can perform through the user session socket instead of HTTP calls.
+ */
+public enum Operation {
+    LIKE_ARTICLE, REMOVE_ARTICLE_LIKE, DELETE_VIEW,
+    CREATE_COMMENT, EDIT_COMMENT, DELETE_COMMENT, LIKE_COMMENT, REMOVE_COMMENT_LIKE
+}
@@ -0,0 +1,34 @@
+package core.project.messaging.application.dto.messaging;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import core.project.messaging.application.dto.articles.CommentDTO;
+
+/**
+ * Payload of a {@link MessageType#RESULT}, every kind of payload is written as its only value.
+ */
+public sealed interface RequestResult permits RequestResult.Sequence, RequestResult.EditedComment {
+
+    /**
+     * Sequence number assigned to the chat message within the conversation.
+     */
+    record Sequence(long seq) implements RequestResult {
+
+        @JsonValue
+        @Override
+        public long seq() {
+            return seq;
+        }
+    }
+
+    /**
+     * Comment after {@link Operation#EDIT_COMMENT}.
+     */
+    record EditedComment(CommentDTO comment) implements RequestResult {
+
+        @JsonValue
+        @Override
+        public CommentDTO comment() {
+            return comment;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package core.project.messaging.application.dto.messaging;
+
+import java.util.List;
+
+/**
+ * Constant messages sent by the server. Encoders serialize them once and reuse the frames.
+ */
+public final class SystemMessages {
+
+    private SystemMessages() {}
+
+    public static final Message CONNECTED = Message.info("Successful connection to messaging");
+
+    public static final Message RATE_LIMITED = Message.error("You expose of message limits per time unit.");
+
+    public static final Message SERVER_BUSY = Message.error("Server is busy. Message is rejected.");
+
+    public static final Message INVALID_MESSAGE = Message.error("Invalid message.");
+
+    public static final Message INVALID_MESSAGE_TYPE = Message.error("Invalid message type.");
+
+    public static final Message ACCOUNT_NOT_EXISTS = Message.error("This account is not exists.");
+
+    public static final Message PARTNER_REQUIRED_FOR_REQUEST =
+            Message.error("Partner user name is required for partnership creation.");
+
+    public static final Message PARTNER_REQUIRED_FOR_DECLINE =
+            Message.error("Partner user name is required for partnership declining.");
+
+    public static final List<Message> ALL = List.of(
+            CONNECTED,
+            RATE_LIMITED,
+            SERVER_BUSY,
+            INVALID_MESSAGE,
+            INVALID_MESSAGE_TYPE,
+            ACCOUNT_NOT_EXISTS,
+            PARTNER_REQUIRED_FOR_REQUEST,
+            PARTNER_REQUIRED_FOR_DECLINE
+    );
+}
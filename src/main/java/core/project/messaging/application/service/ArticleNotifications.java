@@ -0,0 +1,148 @@
+package core.project.messaging.application.service;
+
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.domain.user.value_objects.Username;
+import core.project.messaging.infrastructure.dal.cache.PendingNotifications;
+import core.project.messaging.infrastructure.dal.repository.PartnershipGraph;
+import core.project.messaging.infrastructure.ws.MessageRouter;
+import core.project.messaging.infrastructure.ws.ReplayBuffers;
+import core.project.messaging.infrastructure.ws.TimingWheel;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Notifies partners of an author about published articles.
+ * <p>
+ * Publication only records article id in the burst of the author, so request thread is not delayed.
+ * Burst is flushed after {@code ws.articles.coalesce-window}, and all articles published in this time
+ * reach every partner as a single frame. A burst which reaches {@link #MAX_ARTICLES_PER_FRAME} articles
+ * is flushed at once and the next article starts a new one, so no article is left out.
+ * Partners which are offline get the burst on their next connect.
+ */
+@ApplicationScoped
+public class ArticleNotifications {
+
+    static final int MAX_ARTICLES_PER_FRAME = 20;
+
+    private static final char SEPARATOR = ':';
+
+    @ConfigProperty(name = "ws.articles.coalesce-window", defaultValue = "PT10S")
+    Duration coalesceWindow;
+
+    @ConfigProperty(name = "ws.articles.pending-per-connect", defaultValue = "100")
+    int pendingPerConnect;
+
+    private final TimingWheel timingWheel;
+
+    private final MessageRouter messageRouter;
+
+    private final PartnershipGraph partnershipGraph;
+
+    private final PendingNotifications pendingNotifications;
+
+    private final ReplayBuffers replayBuffers;
+
+    private final ConcurrentHashMap<Username, Burst> bursts = new ConcurrentHashMap<>();
+
+    ArticleNotifications(TimingWheel timingWheel,
+                         MessageRouter messageRouter,
+                         PartnershipGraph partnershipGraph,
+                         PendingNotifications pendingNotifications,
+                         ReplayBuffers replayBuffers) {
+        this.timingWheel = timingWheel;
+        this.messageRouter = messageRouter;
+        this.partnershipGraph = partnershipGraph;
+        this.pendingNotifications = pendingNotifications;
+        this.replayBuffers = replayBuffers;
+    }
+
+    public void published(Username author, UUID articleId) {
+        Burst[] full = new Burst[1];
+        bursts.compute(author, (key, burst) -> {
+            if (burst == null) {
+                Burst created = new Burst();
+                created.flush = timingWheel.schedule(() -> flush(author, created), coalesceWindow);
+                burst = created;
+            }
+
+            burst.articleIds.add(articleId.toString());
+            if (burst.articleIds.size() < MAX_ARTICLES_PER_FRAME) return burst;
+
+            full[0] = burst;
+            return null;
+        });
+
+        if (full[0] == null) return;
+
+        Burst burst = full[0];
+        burst.flush.cancel();
+        timingWheel.schedule(() -> notifyPartners(author, burst.articleIds), Duration.ZERO);
+    }
+
+    /**
+     * Skips the burst if it was already flushed because it was full.
+     */
+    private void flush(Username author, Burst burst) {
+        if (bursts.remove(author, burst)) notifyPartners(author, burst.articleIds);
+    }
+
+    private void notifyPartners(Username author, Set<String> burst) {
+        var result = partnershipGraph.partners(author);
+        if (!result.success()) {
+            Log.errorf("Can`t notify partners of %s about published articles: %s", author.username(), result.throwable());
+            return;
+        }
+        if (result.value().isEmpty()) return;
+
+        Set<Username> partners = result.value().stream().map(Username::new).collect(Collectors.toSet());
+
+        try {
+            List<String> articleIds = List.copyOf(burst);
+            Set<Username> reached = messageRouter.broadcast(partners, Message.articlesPublished(author.username(), articleIds));
+
+            Set<Username> offline = new HashSet<>(partners);
+            offline.removeAll(reached);
+            pendingNotifications.push(offline, articleIds.stream().map(id -> author.username() + SEPARATOR + id).toList());
+        } catch (Exception e) {
+            Log.errorf("Can`t notify partners of %s about published articles: %s", author.username(), e.getMessage());
+        }
+    }
+
+    /**
+     * Sends notifications collected while the user was offline, one frame per author.
+     * They go through the stream of the user, so a client which loses the connection gets them on resume.
+     */
+    public void sendPending(Username username) {
+        List<String> entries = pendingNotifications.drain(username, pendingPerConnect);
+        if (entries.isEmpty()) return;
+
+        Map<String, List<String>> byAuthor = new LinkedHashMap<>();
+        for (String entry : entries) {
+            int separator = entry.lastIndexOf(SEPARATOR);
+            if (separator <= 0) continue;
+
+            byAuthor.computeIfAbsent(entry.substring(0, separator), k -> new ArrayList<>())
+                    .add(entry.substring(separator + 1));
+        }
+
+        byAuthor.forEach((author, articleIds) -> replayBuffers.deliver(username, Message.articlesPublished(author, articleIds)));
+    }
+
+    private static final class Burst {
+        private final Set<String> articleIds = new LinkedHashSet<>();
+        private TimingWheel.Timeout flush;
+    }
+}
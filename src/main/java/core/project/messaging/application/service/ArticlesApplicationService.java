@@ -25,13 +25,17 @@ public class ArticlesApplicationService {
 
     private final ArticlesService articlesService;
 
+    private final ArticleNotifications articleNotifications;
+
     private final OutboundArticleRepository articleRepository;
 
     ArticlesApplicationService(ArticleMapper mapper,
                                ArticlesService articlesService,
+                               ArticleNotifications articleNotifications,
                                OutboundArticleRepository articleRepository) {
         this.mapper = mapper;
         this.articlesService = articlesService;
+        this.articleNotifications = articleNotifications;
         this.articleRepository = articleRepository;
     }
 
@@ -58,11 +62,15 @@ public class ArticlesApplicationService {
 
     public ArticleDTO save(ArticleForm articleForm, String username) {
         Article article = articlesService.save(articleForm, username);
+        if (article.status().equals(ArticleStatus.PUBLISHED)) articleNotifications.published(new Username(username), article.id());
         return mapper.toDto(article);
     }
 
     public ArticleDTO changeStatus(String articleID, ArticleStatus status, String username) {
-        Article article = articlesService.changeStatus(articleID, status, username);
+        var statusChange = articlesService.changeStatus(articleID, status, username);
+        Article article = statusChange.getFirst();
+        if (statusChange.getSecond() && article.status().equals(ArticleStatus.PUBLISHED))
+            articleNotifications.published(new Username(username), article.id());
         return mapper.toDto(article);
     }
 
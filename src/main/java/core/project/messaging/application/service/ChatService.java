@@ -0,0 +1,102 @@
+package core.project.messaging.application.service;
+
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.application.dto.messaging.RequestResult;
+import core.project.messaging.domain.user.repositories.InboundChatRepository;
+import core.project.messaging.domain.user.repositories.OutboundChatRepository;
+import core.project.messaging.domain.user.value_objects.ChatMessage;
+import core.project.messaging.domain.user.value_objects.Username;
+import core.project.messaging.infrastructure.dal.cache.ChatSequences;
+import core.project.messaging.infrastructure.dal.repository.PartnershipGraph;
+import core.project.messaging.infrastructure.ws.MessageRouter;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Direct messages between partners. A message is delivered live to all devices of the addressee
+ * and handed to the write-behind store, so persistence never delays delivery.
+ */
+@ApplicationScoped
+public class ChatService {
+
+    @ConfigProperty(name = "ws.chat.history.page-size", defaultValue = "50")
+    int historyPageSize;
+
+    private final MessageRouter messageRouter;
+
+    private final PartnershipGraph partnershipGraph;
+
+    private final ChatSequences chatSequences;
+
+    private final InboundChatRepository inboundChatRepository;
+
+    private final OutboundChatRepository outboundChatRepository;
+
+    ChatService(MessageRouter messageRouter,
+                PartnershipGraph partnershipGraph,
+                ChatSequences chatSequences,
+                InboundChatRepository inboundChatRepository,
+                OutboundChatRepository outboundChatRepository) {
+        this.messageRouter = messageRouter;
+        this.partnershipGraph = partnershipGraph;
+        this.chatSequences = chatSequences;
+        this.inboundChatRepository = inboundChatRepository;
+        this.outboundChatRepository = outboundChatRepository;
+    }
+
+    /**
+     * @return result with the sequence number of the message within the conversation
+     */
+    public Message send(Username sender, Message message) {
+        if (!Username.validate(message.partner())) return Message.error("Partner user name is required for chat.");
+        if (Objects.isNull(message.message()) || message.message().isBlank()) return Message.error("Message text is required.");
+        if (message.message().length() > ChatMessage.MAX_TEXT_LENGTH) return Message.error("Message text is too long.");
+
+        Username addressee = new Username(message.partner());
+        var isPartner = partnershipGraph.contains(sender, addressee);
+        if (!isPartner.success()) {
+            Log.errorf("Can`t check partnership of %s and %s: %s", sender.username(), addressee.username(), isPartner.throwable());
+            return Message.error("Can`t check partnership.");
+        }
+        if (!isPartner.value()) return Message.error("Chat is available only between partners.");
+
+        String conversation = ChatMessage.conversation(sender, addressee);
+        long seq = chatSequences.next(conversation);
+        ChatMessage chatMessage = new ChatMessage(conversation, seq, sender, addressee, message.message(), LocalDateTime.now());
+
+        messageRouter.send(addressee, Message.chat(sender.username(),
+                List.of(Message.chatItem(sender.username(), chatMessage.text(), seq)), null));
+        inboundChatRepository.append(chatMessage);
+        return Message.result(message.requestId(), new RequestResult.Sequence(seq));
+    }
+
+    /**
+     * Page of the conversation history, newest first. Client passes sequence number of the oldest received message
+     * in {@code seq} to receive the previous page.
+     */
+    public Message history(Username username, Message message) {
+        if (!Username.validate(message.partner())) return Message.error("Partner user name is required for chat.");
+
+        Username partner = new Username(message.partner());
+        long beforeSeq = Objects.isNull(message.seq()) ? Long.MAX_VALUE : message.seq();
+        var result = outboundChatRepository.history(ChatMessage.conversation(username, partner), beforeSeq, historyPageSize + 1);
+        if (!result.success()) {
+            Log.errorf("Can`t load chat history of %s: %s", username.username(), result.throwable());
+            return Message.error("Can`t load chat history.");
+        }
+
+        List<ChatMessage> messages = result.value();
+        boolean hasMore = messages.size() > historyPageSize;
+        List<Message> items = messages.stream()
+                .limit(historyPageSize)
+                .map(chatMessage -> Message.chatItem(chatMessage.sender().username(), chatMessage.text(), chatMessage.seq()))
+                .toList();
+
+        return Message.chat(partner.username(), items, hasMore);
+    }
+}
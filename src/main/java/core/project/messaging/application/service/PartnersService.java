@@ -1,11 +1,19 @@
 package core.project.messaging.application.service;
 
+import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException;
+import core.project.messaging.domain.user.enumerations.PartnersOrder;
 import core.project.messaging.domain.user.repositories.OutboundUserRepository;
 import core.project.messaging.domain.user.services.PartnershipsService;
+import core.project.messaging.domain.user.value_objects.PartnerSuggestion;
+import core.project.messaging.domain.user.value_objects.PartnersPage;
 import core.project.messaging.domain.user.value_objects.Username;
+import io.quarkus.logging.Log;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.core.Response;
 
+import java.util.List;
+import java.util.Objects;
+
 import static core.project.messaging.application.util.JSONUtilities.responseException;
 
 @ApplicationScoped
@@ -20,11 +28,28 @@ public class PartnersService {
         this.outboundUserRepository = outboundUserRepository;
     }
 
-    public Object listOfPartners(String username, int pageNumber, int pageSize) {
-        int limit = buildLimit(pageSize);
-        int offSet = buildOffSet(limit, pageNumber);
-        return outboundUserRepository.listOfPartners(new Username(username), limit, offSet)
-                .orElseThrow(() -> responseException(Response.Status.BAD_REQUEST, "User does not exist.\uD83D\uDC7B"));
+    public PartnersPage listOfPartners(String username, PartnersOrder order, String cursor, int pageSize) {
+        var result = outboundUserRepository.partners(new Username(username),
+                Objects.requireNonNullElse(order, PartnersOrder.USERNAME), cursor, buildLimit(pageSize));
+        if (result.success()) return result.value();
+
+        if (result.throwable() instanceof IllegalDomainArgumentException e)
+            throw responseException(Response.Status.BAD_REQUEST, e.getMessage());
+        Log.errorf("Can`t load partners of %s: %s", username, result.throwable());
+        throw responseException(Response.Status.INTERNAL_SERVER_ERROR, "Can`t load partners.");
+    }
+
+    /**
+     * Only a missing user is a bad request, failures of the storage are server errors.
+     */
+    public List<PartnerSuggestion> suggestions(String username, int limit) {
+        var result = outboundUserRepository.suggestions(new Username(username), buildLimit(limit));
+        if (result.success()) return result.value();
+
+        if (result.throwable() instanceof IllegalDomainArgumentException)
+            throw responseException(Response.Status.BAD_REQUEST, "User does not exist.\uD83D\uDC7B");
+        Log.errorf("Can`t load partner suggestions of %s: %s", username, result.throwable());
+        throw responseException(Response.Status.INTERNAL_SERVER_ERROR, "Can`t load partner suggestions.");
     }
 
     public void removePartner(String username, String partner) {
@@ -40,14 +65,4 @@ public class PartnersService {
         }
         return limit;
     }
-
-    public static int buildOffSet(Integer limit, Integer pageNumber) {
-        int offSet;
-        if (limit > 0 && pageNumber > 0) {
-            offSet = (pageNumber - 1) * limit;
-        } else {
-            offSet = 0;
-        }
-        return offSet;
-    }
 }
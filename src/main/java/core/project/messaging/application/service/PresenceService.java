@@ -0,0 +1,78 @@
+package core.project.messaging.application.service;
+
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.domain.user.value_objects.Username;
+import core.project.messaging.infrastructure.dal.repository.PartnershipGraph;
+import core.project.messaging.infrastructure.ws.MessageRouter;
+import core.project.messaging.infrastructure.ws.TimingWheel;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Notifies partners of a user when the user connects or disconnects.
+ * <p>
+ * Offline event is delayed by {@code ws.presence.debounce}: if user reconnects in this time,
+ * both events are dropped, so partners don`t see flaps of unstable connections.
+ */
+@ApplicationScoped
+public class PresenceService {
+
+    @ConfigProperty(name = "ws.presence.debounce", defaultValue = "PT5S")
+    Duration debounce;
+
+    private final MessageRouter messageRouter;
+
+    private final PartnershipGraph partnershipGraph;
+
+    private final TimingWheel timingWheel;
+
+    private final ConcurrentHashMap<Username, TimingWheel.Timeout> pendingOffline = new ConcurrentHashMap<>();
+
+    PresenceService(MessageRouter messageRouter, PartnershipGraph partnershipGraph, TimingWheel timingWheel) {
+        this.messageRouter = messageRouter;
+        this.partnershipGraph = partnershipGraph;
+        this.timingWheel = timingWheel;
+    }
+
+    /**
+     * Must be called only for the first session of the user in the cluster, further devices don`t change presence.
+     */
+    public void online(Username username) {
+        TimingWheel.Timeout offline = pendingOffline.remove(username);
+        if (offline != null && offline.cancel()) return;
+
+        notifyPartners(username, true);
+    }
+
+    public void offline(Username username) {
+        TimingWheel.Timeout offline = timingWheel.schedule(() -> {
+            pendingOffline.remove(username);
+            if (messageRouter.isOnline(username)) return;
+
+            notifyPartners(username, false);
+            partnershipGraph.evict(username);
+        }, debounce);
+
+        TimingWheel.Timeout previous = pendingOffline.put(username, offline);
+        if (previous != null) previous.cancel();
+    }
+
+    private void notifyPartners(Username username, boolean isOnline) {
+        var result = partnershipGraph.partners(username);
+        if (!result.success()) {
+            Log.errorf("Can`t notify partners of %s about presence: %s", username.username(), result.throwable());
+            return;
+        }
+        if (result.value().isEmpty()) return;
+
+        Set<Username> partners = result.value().stream().map(Username::new).collect(Collectors.toSet());
+
+        messageRouter.broadcast(partners, Message.presence(username.username(), isOnline));
+    }
+}
@@ -0,0 +1,104 @@
+package core.project.messaging.application.service;
+
+import core.project.messaging.application.dto.articles.CommentForm;
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.application.dto.messaging.RequestResult;
+import core.project.messaging.domain.articles.services.ArticlesService;
+import core.project.messaging.domain.articles.services.CommentsService;
+import core.project.messaging.domain.user.value_objects.Username;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.WebApplicationException;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Executes requests of connected clients through the same services as the HTTP resources,
+ * so a chatty client pays neither a new HTTP request nor token validation per operation.
+ */
+@ApplicationScoped
+public class SocketRequestsService {
+
+    public static final int MAX_REQUEST_ID_LENGTH = 64;
+
+    private final ArticlesService articlesService;
+
+    private final CommentsService commentsService;
+
+    private final CommentsApplicationService commentsApplicationService;
+
+    SocketRequestsService(ArticlesService articlesService,
+                          CommentsService commentsService,
+                          CommentsApplicationService commentsApplicationService) {
+        this.articlesService = articlesService;
+        this.commentsService = commentsService;
+        this.commentsApplicationService = commentsApplicationService;
+    }
+
+    /**
+     * @return result frame correlated with the request by its id
+     */
+    public Message execute(Username username, Message request) {
+        String requestId = request.requestId();
+        if (Objects.isNull(requestId) || requestId.isBlank() || requestId.length() > MAX_REQUEST_ID_LENGTH) {
+            return Message.error("Request id is required and must not exceed %d characters.".formatted(MAX_REQUEST_ID_LENGTH));
+        }
+        if (Objects.isNull(request.operation())) return Message.error(requestId, "Operation is required.");
+
+        Map<String, String> params = Objects.requireNonNullElse(request.params(), Map.of());
+        String user = username.username();
+        try {
+            return switch (request.operation()) {
+                case LIKE_ARTICLE -> {
+                    articlesService.likeArticle(required(params, "articleID"), user);
+                    yield Message.result(requestId);
+                }
+                case REMOVE_ARTICLE_LIKE -> {
+                    articlesService.deleteLike(required(params, "articleID"), user);
+                    yield Message.result(requestId);
+                }
+                case DELETE_VIEW -> {
+                    articlesService.deleteView(required(params, "articleID"), user);
+                    yield Message.result(requestId);
+                }
+                case CREATE_COMMENT -> {
+                    commentsApplicationService.create(new CommentForm(
+                            required(params, "articleID"),
+                            required(params, "text"),
+                            params.get("parentCommentID"),
+                            params.get("respondTo")), user);
+                    yield Message.result(requestId);
+                }
+                case EDIT_COMMENT -> Message.result(requestId, new RequestResult.EditedComment(
+                        commentsApplicationService.edit(required(params, "commentID"), required(params, "text"), user)));
+                case DELETE_COMMENT -> {
+                    commentsApplicationService.delete(required(params, "commentID"), user);
+                    yield Message.result(requestId);
+                }
+                case LIKE_COMMENT -> {
+                    commentsService.like(required(params, "commentID"), user);
+                    yield Message.result(requestId);
+                }
+                case REMOVE_COMMENT_LIKE -> {
+                    commentsService.deleteLike(required(params, "commentID"), user);
+                    yield Message.result(requestId);
+                }
+            };
+        } catch (IllegalArgumentException e) {
+            return Message.error(requestId, e.getMessage());
+        } catch (WebApplicationException e) {
+            Object entity = e.getResponse().getEntity();
+            return Message.error(requestId, Objects.nonNull(entity) ? entity.toString() : e.getMessage());
+        } catch (Exception e) {
+            Log.errorf("Request %s of %s failed: %s", request.operation(), user, e.getMessage());
+            return Message.error(requestId, "Unexpected error.");
+        }
+    }
+
+    private static String required(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (Objects.isNull(value) || value.isBlank()) throw new IllegalArgumentException("%s is required.".formatted(name));
+        return value;
+    }
+}
@@ -1,18 +1,28 @@
 package core.project.messaging.application.service;
 
 import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.application.dto.messaging.MessageType;
+import core.project.messaging.application.dto.messaging.SystemMessages;
 import core.project.messaging.domain.commons.containers.Result;
 import core.project.messaging.domain.user.entities.User;
 import core.project.messaging.domain.user.enumerations.InvitationResult;
 import core.project.messaging.domain.user.repositories.OutboundUserRepository;
 import core.project.messaging.domain.user.services.PartnershipsService;
 import core.project.messaging.domain.user.value_objects.PartnershipInvitation;
+import core.project.messaging.domain.user.value_objects.PartnershipRequestsPage;
 import core.project.messaging.domain.user.value_objects.Username;
 import core.project.messaging.infrastructure.dal.cache.SessionStorage;
+import core.project.messaging.infrastructure.ws.MessageRouter;
+import core.project.messaging.infrastructure.ws.RecentRequests;
+import core.project.messaging.infrastructure.ws.ReplayBuffer;
+import core.project.messaging.infrastructure.ws.ReplayBuffers;
 import io.quarkus.logging.Log;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.websocket.Session;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -22,38 +32,91 @@ import static core.project.messaging.application.util.WSUtilities.sendMessage;
 @ApplicationScoped
 public class UserSessionService {
 
+    @ConfigProperty(name = "ws.inbox.page-size", defaultValue = "20")
+    int inboxPageSize;
+
+    private final MessageRouter messageRouter;
+
+    private final ReplayBuffers replayBuffers;
+
     private final SessionStorage sessionStorage;
 
+    private final PresenceService presenceService;
+
+    private final ArticleNotifications articleNotifications;
+
+    private final SocketRequestsService socketRequestsService;
+
+    private final ChatService chatService;
+
     private final PartnershipsService partnershipsService;
 
     private final OutboundUserRepository outboundUserRepository;
 
-    UserSessionService(SessionStorage sessionStorage,
+    UserSessionService(MessageRouter messageRouter,
+                       ReplayBuffers replayBuffers,
+                       SessionStorage sessionStorage,
+                       PresenceService presenceService,
+                       ArticleNotifications articleNotifications,
+                       SocketRequestsService socketRequestsService,
+                       ChatService chatService,
                        PartnershipsService partnershipsService,
                        OutboundUserRepository outboundUserRepository) {
+        this.messageRouter = messageRouter;
+        this.replayBuffers = replayBuffers;
         this.sessionStorage = sessionStorage;
+        this.presenceService = presenceService;
+        this.articleNotifications = articleNotifications;
+        this.socketRequestsService = socketRequestsService;
+        this.chatService = chatService;
         this.partnershipsService = partnershipsService;
         this.outboundUserRepository = outboundUserRepository;
     }
 
     public void onOpen(Session session, Username username) {
+        Optional<ReplayBuffer> resumable = replayBuffers.lookup(username, session);
+        if (resumable.isPresent()) {
+            resume(session, username, resumable.get());
+            return;
+        }
+
         Result<User, Throwable> account = outboundUserRepository.findByUsername(username);
         if (!account.success()) {
             closeSession(session, Message.error("This account does`t exist."));
             return;
         }
-        if (sessionStorage.contains(username)) {
-            closeSession(session, Message.error("You can`t duplicate sessions."));
+
+        User user = Objects.requireNonNull(account.orElseThrow());
+        int sessions = messageRouter.admit(session, user);
+        if (sessions == 0) {
+            closeSession(session, Message.error("Maximum count of sessions for this account is reached."));
             return;
         }
 
-        sessionStorage.put(session, Objects.requireNonNull(account.orElseThrow()));
+        sendMessage(session, SystemMessages.CONNECTED);
+        replayBuffers.open(username, user, session);
+        sendInbox(session, username, PartnershipRequestsPage.INITIAL_CURSOR);
+        articleNotifications.sendPending(username);
+        if (sessions == 1) presenceService.online(username);
+    }
 
-        sendMessage(session, Message.info("Successful connection to messaging"));
-        partnershipsService
-                .getAll(username.username())
-                .forEach((user, message) ->
-                        sendMessage(session, Message.partnershipRequest(String.format("%s: {%s}", user, message), user)));
+    /**
+     * Reconnect within the resume window: account and inbox are not loaded again, client receives only missed frames.
+     */
+    private void resume(Session session, Username username, ReplayBuffer buffer) {
+        int sessions = messageRouter.admit(session, buffer.account());
+        if (sessions == 0) {
+            closeSession(session, Message.error("Maximum count of sessions for this account is reached."));
+            return;
+        }
+
+        sendMessage(session, SystemMessages.CONNECTED);
+        if (!replayBuffers.resume(buffer, session)) {
+            replayBuffers.open(username, buffer.account(), session);
+            sendInbox(session, username, PartnershipRequestsPage.INITIAL_CURSOR);
+        }
+        articleNotifications.sendPending(username);
+        if (sessions == 1) presenceService.online(username);
     }
 
     public void onMessage(Session session, Username username, Message message) {
@@ -71,65 +134,128 @@ public class UserSessionService {
     }
 
     private void handleMessage(Message message, Session session, User user) {
-        switch (message.type()) {
+        if (message.type() == MessageType.INBOX_NEXT) {
+            Object cursor = session.getUserProperties().remove(SessionStorage.SessionProperties.INBOX_CURSOR.key());
+            if (!(cursor instanceof String nextCursor)) {
+                sendMessage(session, Message.inbox(List.of(), false));
+                return;
+            }
+
+            sendInbox(session, user.username(), nextCursor);
+            return;
+        }
+
+        String requestId = message.requestId();
+        if (Objects.isNull(requestId)) {
+            Message reply = execute(message, session, user);
+            if (Objects.nonNull(reply)) sendMessage(session, reply);
+            return;
+        }
+
+        if (requestId.isBlank() || requestId.length() > SocketRequestsService.MAX_REQUEST_ID_LENGTH) {
+            sendMessage(session, Message.error("Request id must not be blank or exceed %d characters."
+                    .formatted(SocketRequestsService.MAX_REQUEST_ID_LENGTH)));
+            return;
+        }
+
+        RecentRequests recentRequests = RecentRequests.of(session);
+        Optional<Message> priorReply = recentRequests.replyTo(requestId);
+        if (priorReply.isPresent()) {
+            Log.infof("Repeated request %s of user -> %s, sending the prior reply.", requestId, user.username().username());
+            sendMessage(session, priorReply.get());
+            return;
+        }
+
+        Message reply = Objects.requireNonNullElseGet(execute(message, session, user), () -> Message.result(requestId));
+        if (!requestId.equals(reply.requestId())) reply = reply.withRequestId(requestId);
+
+        recentRequests.record(requestId, reply);
+        sendMessage(session, reply);
+    }
+
+    /**
+     * @return reply to the client, null if the outcome is delivered otherwise, e.g. to both partners
+     */
+    private Message execute(Message message, Session session, User user) {
+        return switch (message.type()) {
             case PARTNERSHIP_REQUEST -> {
                 String addressee = message.partner();
-                if (!Username.validate(addressee)) {
-                    sendMessage(session, Message.error("Partner user name is required for partnership creation."));
-                    return;
-                }
+                if (!Username.validate(addressee)) yield SystemMessages.PARTNER_REQUIRED_FOR_REQUEST;
 
-                partnershipRequest(session, user, message, new Username(addressee));
+                yield partnershipRequest(user, message, new Username(addressee));
             }
             case PARTNERSHIP_DECLINE -> {
                 String addressee = message.partner();
-                if (!Username.validate(addressee)) {
-                    sendMessage(session, Message.error("Partner user name is required for partnership declining."));
-                    return;
-                }
+                if (!Username.validate(addressee)) yield SystemMessages.PARTNER_REQUIRED_FOR_DECLINE;
 
                 partnershipsService.partnershipDecline(user, new Username(addressee));
+                yield null;
             }
-            default -> sendMessage(session, Message.error("Invalid message type."));
-        }
+            case REQUEST -> socketRequestsService.execute(user.username(), message);
+            case CHAT -> chatService.send(user.username(), message);
+            case CHAT_HISTORY -> chatService.history(user.username(), message);
+            default -> SystemMessages.INVALID_MESSAGE_TYPE;
+        };
     }
 
-    private void partnershipRequest(Session session, User addresser, Message message, Username addressee) {
-        if (sessionStorage.contains(addressee)) {
-            Optional<Session> addresseeSession = sessionStorage.get(addressee);
-            if (addresseeSession.isEmpty()) {
-                closeSession(session, Message.error("Unexpected error. The connected web socket connection is not in the storage."));
-                return;
-            }
+    /**
+     * Sends single page of pending partnership requests, next page is sent only after client acknowledgement.
+     */
+    private void sendInbox(Session session, Username username, String cursor) {
+        PartnershipRequestsPage page = partnershipsService.pendingRequests(username, cursor, inboxPageSize);
+        if (page.requests().isEmpty()) {
+            if (!PartnershipRequestsPage.INITIAL_CURSOR.equals(cursor)) sendMessage(session, Message.inbox(List.of(), false));
+            return;
+        }
+
+        List<Message> requests = new ArrayList<>(page.requests().size());
+        page.requests().forEach((user, message) ->
+                requests.add(Message.partnershipRequest(String.format("%s: {%s}", user, message), user)));
 
-            Optional<User> addresseeAccount = extractAccount(addresseeSession.orElseThrow());
+        if (page.hasMore()) session.getUserProperties().put(SessionStorage.SessionProperties.INBOX_CURSOR.key(), page.cursor());
+        sendMessage(session, Message.inbox(requests, page.hasMore()));
+    }
+
+    private Message partnershipRequest(User addresser, Message message, Username addressee) {
+        List<Session> addresseeSessions = sessionStorage.get(addressee);
+        if (!addresseeSessions.isEmpty()) {
+            Session addresseeSession = addresseeSessions.getFirst();
+            Optional<User> addresseeAccount = extractAccount(addresseeSession);
             if (addresseeAccount.isEmpty()) {
-                closeSession(addresseeSession.get(), Message
+                closeSession(addresseeSession, Message
                         .error("Unexpected error. The connected web socket connection is not in the storage."));
-                return;
+                return null;
             }
 
             var invitationResult = partnershipsService.partnershipRequest(addresser, addresseeAccount.get(), message.message());
-            if (!invitationResult.success()) {
-                sendMessage(session, Message.error(invitationResult.throwable().getMessage()));
-                return;
-            }
+            if (!invitationResult.success()) return Message.error(invitationResult.throwable().getMessage());
 
-            sendPartnershipInvitationResult(session, addressee, invitationResult, addresseeSession.get());
-            return;
+            sendPartnershipInvitationResult(addresser.username(), addressee, invitationResult);
+            return null;
         }
 
-        var invitationResult = partnershipsService.partnershipRequest(addresser, addressee, message.message());
-        if (!invitationResult.success()) {
-            sendMessage(session, Message.error(invitationResult.throwable().getMessage()));
-            return;
+        if (messageRouter.isOnline(addressee)) {
+            Result<User, Throwable> addresseeAccount = outboundUserRepository.findByUsername(addressee);
+            if (!addresseeAccount.success()) return SystemMessages.ACCOUNT_NOT_EXISTS;
+
+            var invitationResult = partnershipsService.partnershipRequest(addresser, addresseeAccount.value(), message.message());
+            if (!invitationResult.success()) return Message.error(invitationResult.throwable().getMessage());
+
+            sendPartnershipInvitationResult(addresser.username(), addressee, invitationResult);
+            return null;
         }
 
-        sendMessage(session, Message.userInfo(invitationResult.value().message()));
+        var invitationResult = partnershipsService.partnershipRequest(addresser, addressee, message.message());
+        if (!invitationResult.success()) return Message.error(invitationResult.throwable().getMessage());
+
+        return Message.userInfo(invitationResult.value().message());
     }
 
     public void onClose(Session session, Username username) {
-        sessionStorage.remove(username);
+        if (!messageRouter.release(session, username)) return;
+
+        replayBuffers.detach(username, session);
+        presenceService.offline(username);
     }
 
     public Optional<User> extractAccount(Session session) {
@@ -138,22 +264,24 @@ public class UserSessionService {
                 .map(User.class::cast);
     }
 
-    private static void sendPartnershipInvitationResult(Session session, Username addressee,
-                                                        Result<PartnershipInvitation, Throwable> invitationResult,
-                                                        Session addresseeSession) {
+    /**
+     * Result is delivered to all devices of both users.
+     */
+    private void sendPartnershipInvitationResult(Username addresser, Username addressee,
+                                                 Result<PartnershipInvitation, Throwable> invitationResult) {
 
         InvitationResult result = invitationResult.value().result();
         String rawMessage = invitationResult.value().message();
         if (result == InvitationResult.BOTH) {
             Message message = Message.userInfo(rawMessage);
-            sendMessage(session, message);
-            sendMessage(addresseeSession, message);
+            messageRouter.send(addresser, message);
+            messageRouter.send(addressee, message);
             return;
         }
 
         if (result == InvitationResult.ADDRESSEE) {
             Message message = Message.partnershipRequest(rawMessage, addressee.username());
-            sendMessage(addresseeSession, message);
+            messageRouter.send(addressee, message);
         }
     }
 }
@@ -1,29 +1,73 @@
 package core.project.messaging.application.service;
 
+import core.project.messaging.application.dto.messaging.Message;
 import core.project.messaging.domain.commons.containers.Result;
+import core.project.messaging.infrastructure.dal.cache.SessionStorage;
 import core.project.messaging.infrastructure.security.JWTUtility;
+import core.project.messaging.infrastructure.ws.TimingWheel;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.websocket.Session;
 import org.eclipse.microprofile.jwt.JsonWebToken;
 
-import java.time.Instant;
+import java.time.Duration;
+import java.util.Map;
+
+import static core.project.messaging.application.util.WSUtilities.closeSession;
 
 @ApplicationScoped
 public class WSAuthService {
 
+    private static final String TOKEN_EXPIRED = "Token is expired.";
+
     private final JWTUtility jwtUtility;
 
-    WSAuthService(JWTUtility jwtUtility) {
+    private final TimingWheel timingWheel;
+
+    WSAuthService(JWTUtility jwtUtility, TimingWheel timingWheel) {
         this.jwtUtility = jwtUtility;
+        this.timingWheel = timingWheel;
     }
 
+    /**
+     * Validates token of the session. Token is parsed and its signature verified only once per session,
+     * then it is cached in the session properties and later calls only compare its expiration with the clock.
+     * Close of the session is scheduled at the expiration, so idle sessions do not outlive their tokens either.
+     */
     public Result<JsonWebToken, IllegalStateException> validateToken(Session session) {
+        Map<String, Object> properties = session.getUserProperties();
+        if (properties.get(SessionStorage.SessionProperties.TOKEN.key()) instanceof VerifiedToken verified) {
+            if (verified.isExpired(System.currentTimeMillis())) return Result.failure(new IllegalStateException(TOKEN_EXPIRED));
+            return Result.success(verified.token());
+        }
+
         Result<JsonWebToken, IllegalStateException> parseResult = jwtUtility.extractJWT(session);
         if (!parseResult.success()) return parseResult;
 
-        JsonWebToken token = parseResult.value();
-        Instant expiration = Instant.ofEpochSecond(token.getExpirationTime());
-        if (expiration.isBefore(Instant.now())) return Result.failure(new IllegalStateException("Token is expired."));
+        long now = System.currentTimeMillis();
+        long expiresAtMillis = parseResult.value().getExpirationTime() * 1000;
+        if (expiresAtMillis <= now) return Result.failure(new IllegalStateException(TOKEN_EXPIRED));
+
+        TimingWheel.Timeout expiration = timingWheel.schedule(() -> expire(session), Duration.ofMillis(expiresAtMillis - now));
+        properties.put(SessionStorage.SessionProperties.TOKEN.key(), new VerifiedToken(parseResult.value(), expiresAtMillis, expiration));
         return parseResult;
     }
+
+    /**
+     * Cancels the scheduled close of a closed session, so the timer does not keep it until the token expires.
+     */
+    public void detach(Session session) {
+        if (session.getUserProperties().get(SessionStorage.SessionProperties.TOKEN.key()) instanceof VerifiedToken verified) {
+            verified.expiration().cancel();
+        }
+    }
+
+    private static void expire(Session session) {
+        if (session.isOpen()) closeSession(session, Message.error(TOKEN_EXPIRED));
+    }
+
+    private record VerifiedToken(JsonWebToken token, long expiresAtMillis, TimingWheel.Timeout expiration) {
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
 }
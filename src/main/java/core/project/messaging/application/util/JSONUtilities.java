@@ -3,6 +3,7 @@ package core.project.messaging.application.util;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import core.project.messaging.application.dto.messaging.Message;
 import io.quarkus.logging.Log;
 import jakarta.ws.rs.WebApplicationException;
@@ -16,13 +17,16 @@ public class JSONUtilities {
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final ObjectWriter messageWriter;
+
     static {
         objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        messageWriter = objectMapper.writerFor(Message.class);
     }
 
     public static String writeJSON(Message message) {
         try {
-            return objectMapper.writeValueAsString(message);
+            return messageWriter.writeValueAsString(message);
         } catch (JsonProcessingException e) {
             Log.errorf("Can`t parse message: %s", e);
         }
@@ -1,10 +1,14 @@
 package core.project.messaging.application.util;
 
 import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.infrastructure.ws.OutboundQueue;
+import core.project.messaging.infrastructure.ws.OutboundQueues;
 import io.quarkus.logging.Log;
 import jakarta.websocket.CloseReason;
 import jakarta.websocket.Session;
 
+import java.util.Optional;
+
 public class WSUtilities {
 
     private WSUtilities() {}
@@ -20,7 +24,17 @@ public class WSUtilities {
         }
     }
 
+    /**
+     * Closes session with the message as reason. Close goes through the control lane of the outbound queue,
+     * so pending control frames are written before it and pending bulk frames are discarded.
+     */
     public static void closeSession(final Session currentSession, final Message message) {
+        Optional<OutboundQueue> queue = OutboundQueues.of(currentSession);
+        if (queue.isPresent()) {
+            queue.get().close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, message.asJSON()));
+            return;
+        }
+
         closeSession(currentSession, message.asJSON());
     }
 
@@ -35,7 +49,16 @@ public class WSUtilities {
         }
     }
 
+    /**
+     * Sends message through the outbound queue of the session, or directly if session has no queue attached
+     */
     public static void sendMessage(final Session session, final Message message) {
+        Optional<OutboundQueue> queue = OutboundQueues.of(session);
+        if (queue.isPresent()) {
+            queue.get().offer(message);
+            return;
+        }
+
         try {
             session.getAsyncRemote().sendObject(message);
         } catch (Exception e) {
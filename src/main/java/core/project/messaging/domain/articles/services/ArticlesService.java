@@ -10,6 +10,7 @@ import core.project.messaging.domain.articles.repositories.OutboundArticleReposi
 import core.project.messaging.domain.articles.values_objects.*;
 import core.project.messaging.domain.commons.containers.Result;
 import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException;
+import core.project.messaging.domain.commons.tuples.Pair;
 import core.project.messaging.domain.user.entities.User;
 import core.project.messaging.domain.user.repositories.OutboundUserRepository;
 import core.project.messaging.domain.user.value_objects.Username;
@@ -134,7 +135,10 @@ public class ArticlesService {
         inboundArticleRepository.deleteLike(UUID.fromString(articleID), user.id());
     }
 
-    public Article changeStatus(String articleID, ArticleStatus status, String username) {
+    /**
+     * @return article with true if its status was changed, false if the article already had the status
+     */
+    public Pair<Article, Boolean> changeStatus(String articleID, ArticleStatus status, String username) {
         if (status.equals(ArticleStatus.DRAFT)) {
             throw new IllegalDomainArgumentException("You can`t draft article after it was published or archived.");
         }
@@ -149,14 +153,15 @@ public class ArticlesService {
 
         validateForAuthorship(user, article);
 
-        if (article.status().equals(ArticleStatus.ARCHIVED)) {
+        ArticleStatus previous = article.status();
+        if (status.equals(ArticleStatus.ARCHIVED)) {
             article.archive();
         } else {
             article.publish();
         }
 
         inboundArticleRepository.statusChange(article);
-        return article;
+        return Pair.of(article, previous != article.status());
     }
 
     public Article updateArticle(String articleID, ArticleText articleText, String username) {
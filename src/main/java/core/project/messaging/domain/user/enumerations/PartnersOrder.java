@@ -0,0 +1,8 @@
+package core.project.messaging.domain.user.enumerations;
+
+public enum PartnersOrder {
+    /** Alphabetical order of partner usernames. */
+    USERNAME,
+    /** Newest partnerships first. */
+    CREATED_AT
+}
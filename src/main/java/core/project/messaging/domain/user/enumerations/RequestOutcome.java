@@ -0,0 +1,10 @@
+package core.project.messaging.domain.user.enumerations;
+
+public enum RequestOutcome {
+    /** The addresser already has an active request to the addressee. */
+    RETRIED,
+    /** Request is stored and waits for the addressee answer. */
+    PENDING,
+    /** The addressee has requested the addresser before, both requests are removed. */
+    MATCHED
+}
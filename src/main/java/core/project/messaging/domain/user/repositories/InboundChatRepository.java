@@ -0,0 +1,11 @@
+package core.project.messaging.domain.user.repositories;
+
+import core.project.messaging.domain.user.value_objects.ChatMessage;
+
+public interface InboundChatRepository {
+
+    /**
+     * Appends the message to the conversation. Persistence is asynchronous and never blocks the caller.
+     */
+    void append(ChatMessage message);
+}
@@ -0,0 +1,14 @@
+package core.project.messaging.domain.user.repositories;
+
+import core.project.messaging.domain.commons.containers.Result;
+import core.project.messaging.domain.user.value_objects.ChatMessage;
+
+import java.util.List;
+
+public interface OutboundChatRepository {
+
+    /**
+     * @return up to {@code limit} latest messages of the conversation with sequence number lower than {@code beforeSeq}
+     */
+    Result<List<ChatMessage>, Throwable> history(String conversation, long beforeSeq, int limit);
+}
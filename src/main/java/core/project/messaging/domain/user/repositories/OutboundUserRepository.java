@@ -2,13 +2,26 @@ package core.project.messaging.domain.user.repositories;
 
 import core.project.messaging.domain.commons.containers.Result;
 import core.project.messaging.domain.user.entities.User;
+import core.project.messaging.domain.user.enumerations.PartnersOrder;
+import core.project.messaging.domain.user.value_objects.PartnerSuggestion;
+import core.project.messaging.domain.user.value_objects.PartnersPage;
 import core.project.messaging.domain.user.value_objects.Username;
 
 import java.util.List;
 
 public interface OutboundUserRepository {
 
-    Result<List<String>, Throwable> listOfPartners(Username username, int limit, int offSet);
+    /**
+     * @param cursor cursor of the previous page, null for the first page
+     */
+    Result<PartnersPage, Throwable> partners(Username username, PartnersOrder order, String cursor, int limit);
+
+    Result<List<String>, Throwable> allPartners(Username username);
+
+    /**
+     * @return users who are not partners yet, with the most mutual partners first
+     */
+    Result<List<PartnerSuggestion>, Throwable> suggestions(Username username, int limit);
 
     boolean havePartnership(User user, User partner);
 
@@ -1,17 +1,29 @@
 package core.project.messaging.domain.user.repositories;
 
 import core.project.messaging.domain.commons.containers.StatusPair;
+import core.project.messaging.domain.user.enumerations.RequestOutcome;
+import core.project.messaging.domain.user.value_objects.PartnershipRequestsPage;
 import core.project.messaging.domain.user.value_objects.Username;
 
 import java.util.Map;
 
 public interface PartnershipRequestsRepository {
 
+    /**
+     * Atomically stores request of the addresser unless it is a retry, or completes it if the addressee
+     * has requested the addresser before.
+     *
+     * @param matchNotice message stored for the addressee instead of the request when requests match, may be null
+     */
+    RequestOutcome request(Username addressee, Username addresser, String message, String matchNotice);
+
     void put(Username addressee, Username addresser, String message);
 
     StatusPair<String> get(Username addressee, Username addresser);
 
     Map<String, String> getAll(Username addressee);
 
+    PartnershipRequestsPage page(Username addressee, String cursor, int count);
+
     void delete(Username addressee, Username addresser);
 }
@@ -1,14 +1,15 @@
 package core.project.messaging.domain.user.services;
 
 import core.project.messaging.domain.commons.containers.Result;
-import core.project.messaging.domain.commons.containers.StatusPair;
 import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException;
 import core.project.messaging.domain.user.entities.User;
 import core.project.messaging.domain.user.enumerations.InvitationResult;
+import core.project.messaging.domain.user.enumerations.RequestOutcome;
 import core.project.messaging.domain.user.repositories.InboundUserRepository;
 import core.project.messaging.domain.user.repositories.OutboundUserRepository;
 import core.project.messaging.domain.user.repositories.PartnershipRequestsRepository;
 import core.project.messaging.domain.user.value_objects.PartnershipInvitation;
+import core.project.messaging.domain.user.value_objects.PartnershipRequestsPage;
 import core.project.messaging.domain.user.value_objects.Username;
 import jakarta.enterprise.context.ApplicationScoped;
 
@@ -35,6 +36,10 @@ public class PartnershipsService {
         return requestsRepository.getAll(new Username(username));
     }
 
+    public PartnershipRequestsPage pendingRequests(Username username, String cursor, int pageSize) {
+        return requestsRepository.page(username, cursor, pageSize);
+    }
+
     public Result<PartnershipInvitation, Throwable> partnershipRequest(
             final User addresserAccount,
             final User addresseeAccount,
@@ -46,30 +51,22 @@ public class PartnershipsService {
         if (addresser.equals(addressee))
             return Result.failure(new IllegalDomainArgumentException("You cannot request yourself for partnership."));
 
-        Username addresseeUsername = new Username(addressee);
-        Username addresserUsername = new Username(addresser);
-
-        final boolean isRequestRetried = requestsRepository.get(addresseeUsername, addresserUsername).status();
-        if (isRequestRetried)
-            return Result.failure(new IllegalDomainArgumentException(
-                    "You cannot send a repeat partnership request to a user while the previous one is active."));
-
         final boolean isAlreadyHavePartnership = outboundUserRepository.havePartnership(addresserAccount, addresseeAccount);
         if (isAlreadyHavePartnership)
             return Result.failure(
                     new IllegalDomainArgumentException("You can`t invite someone who has partnership with you already."));
 
-        requestsRepository.put(addresseeUsername, addresserUsername, message);
+        RequestOutcome outcome = requestsRepository
+                .request(addresseeAccount.username(), addresserAccount.username(), message, null);
+        if (outcome == RequestOutcome.RETRIED)
+            return Result.failure(new IllegalDomainArgumentException(
+                    "You cannot send a repeat partnership request to a user while the previous one is active."));
 
-        final StatusPair<String> isPartnershipCreated = isPartnershipCreated(addresser, addressee);
-        if (isPartnershipCreated.status()) {
+        if (outcome == RequestOutcome.MATCHED) {
             addresserAccount.addPartner(addresseeAccount);
             addresseeAccount.addPartner(addresserAccount);
             inboundUserRepository.addPartnership(addresseeAccount, addresserAccount);
 
-            requestsRepository.delete(addresseeUsername, addresserUsername);
-            requestsRepository.delete(addresserUsername, addresseeUsername);
-
             return Result.success(new PartnershipInvitation(
                     InvitationResult.BOTH, successfullyAddedPartnershipMessage(addresserAccount, addresseeAccount)));
         }
@@ -93,30 +90,22 @@ public class PartnershipsService {
         if (addresser.equals(addressee.username()))
             return Result.failure(new IllegalDomainArgumentException("You cannot request yourself for partnership."));
 
-        Username addresserUsername = new Username(addresser);
-        final boolean isRequestRetried = requestsRepository.get(addressee, addresserUsername).status();
-        if (isRequestRetried)
-            return Result.failure(
-                    new IllegalDomainArgumentException("You can`t invite someone who has partnership with you already."));
-
         final boolean isAlreadyHavePartnership = outboundUserRepository.havePartnership(addresserAccount, addresseeAccount);
         if (isAlreadyHavePartnership)
             return Result.failure(
                     new IllegalDomainArgumentException("You can`t invite someone who has partnership with you already."));
 
-        requestsRepository.put(addressee, addresserUsername, message);
+        String successMessage = successfullyAddedPartnershipMessage(addresserAccount, addresseeAccount);
+        RequestOutcome outcome = requestsRepository.request(addressee, addresserAccount.username(), message, successMessage);
+        if (outcome == RequestOutcome.RETRIED)
+            return Result.failure(new IllegalDomainArgumentException(
+                    "You cannot send a repeat partnership request to a user while the previous one is active."));
 
-        final StatusPair<String> isPartnershipCreated = isPartnershipCreated(addresser, addressee.username());
-        if (isPartnershipCreated.status()) {
+        if (outcome == RequestOutcome.MATCHED) {
             addresserAccount.addPartner(addresseeAccount);
             addresseeAccount.addPartner(addresserAccount);
             inboundUserRepository.addPartnership(addresseeAccount, addresserAccount);
 
-            requestsRepository.delete(addressee, addresserUsername);
-            requestsRepository.delete(addresserUsername, addressee);
-
-            String successMessage = successfullyAddedPartnershipMessage(addresserAccount, addresseeAccount);
-            requestsRepository.put(addressee, addresserUsername, successMessage);
             return Result.success(new PartnershipInvitation(InvitationResult.ADDRESSER, successMessage));
         }
 
@@ -143,11 +132,6 @@ public class PartnershipsService {
         inboundUserRepository.removePartnership(user, partnerAccount);
     }
 
-    private StatusPair<String> isPartnershipCreated(String addresser, String addressee) {
-        final Map<String, String> requests = getAll(addresser);
-        return requests.containsKey(addressee) ? StatusPair.ofTrue(requests.get(addressee)) : StatusPair.ofFalse();
-    }
-
     private static String successfullyAddedPartnershipMessage(User firstUser, User secondUser) {
         return "Partnership {%s - %s} successfully added."
                 .formatted(firstUser.username().username(), secondUser.username().username());
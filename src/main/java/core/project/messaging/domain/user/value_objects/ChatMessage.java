@@ -0,0 +1,39 @@
+package core.project.messaging.domain.user.value_objects;
+
+import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Message of the conversation between two partners, {@code seq} orders messages within the conversation.
+ */
+public record ChatMessage(String conversation, long seq, Username sender, Username addressee, String text,
+                          LocalDateTime creationDate) {
+
+    public static final int MAX_TEXT_LENGTH = 512;
+
+    public ChatMessage {
+        if (Objects.isNull(conversation) || conversation.isBlank())
+            throw new IllegalDomainArgumentException("Conversation can`t be blank");
+        if (seq <= 0)
+            throw new IllegalDomainArgumentException("Sequence number must be positive");
+        if (Objects.isNull(sender) || Objects.isNull(addressee))
+            throw new IllegalDomainArgumentException("Sender and addressee can`t be null");
+        if (Objects.isNull(text) || text.isBlank())
+            throw new IllegalDomainArgumentException("Message text can`t be blank");
+        if (text.length() > MAX_TEXT_LENGTH)
+            throw new IllegalDomainArgumentException("Message text is too long");
+        if (Objects.isNull(creationDate))
+            throw new IllegalDomainArgumentException("Creation date can`t be null");
+    }
+
+    /**
+     * Both partners share the same conversation regardless of who writes first.
+     */
+    public static String conversation(Username firstUser, Username secondUser) {
+        String first = firstUser.username();
+        String second = secondUser.username();
+        return first.compareTo(second) <= 0 ? first + ":" + second : second + ":" + first;
+    }
+}
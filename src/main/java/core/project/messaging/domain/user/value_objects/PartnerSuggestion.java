@@ -0,0 +1,16 @@
+package core.project.messaging.domain.user.value_objects;
+
+import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException;
+
+/**
+ * User who is not a partner yet, with the count of partners shared with the requesting user.
+ */
+public record PartnerSuggestion(String username, int mutualPartners) {
+
+    public PartnerSuggestion {
+        if (username == null)
+            throw new IllegalDomainArgumentException("Username can`t be null");
+        if (mutualPartners <= 0)
+            throw new IllegalDomainArgumentException("Suggested user must have mutual partners");
+    }
+}
@@ -0,0 +1,18 @@
+package core.project.messaging.domain.user.value_objects;
+
+import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException;
+
+import java.util.List;
+
+/**
+ * Page of partner usernames with the total count of partners and the cursor of the next page, null on the last page.
+ */
+public record PartnersPage(List<String> partners, int count, String cursor) {
+
+    public PartnersPage {
+        if (partners == null)
+            throw new IllegalDomainArgumentException("Partners can`t be null");
+        if (count < partners.size())
+            throw new IllegalDomainArgumentException("Count can`t be less than the page size");
+    }
+}
@@ -0,0 +1,24 @@
+package core.project.messaging.domain.user.value_objects;
+
+import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException;
+
+import java.util.Map;
+
+/**
+ * Page of pending partnership requests (addresser -> message) with the cursor of the next page.
+ */
+public record PartnershipRequestsPage(Map<String, String> requests, String cursor) {
+
+    public static final String INITIAL_CURSOR = "0";
+
+    public PartnershipRequestsPage {
+        if (requests == null)
+            throw new IllegalDomainArgumentException("Requests can`t be null");
+        if (cursor == null)
+            throw new IllegalDomainArgumentException("Cursor can`t be null");
+    }
+
+    public boolean hasMore() {
+        return !INITIAL_CURSOR.equals(cursor);
+    }
+}
@@ -0,0 +1,24 @@
+package core.project.messaging.infrastructure.dal.cache;
+
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.value.ValueCommands;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Cluster-wide sequence numbers of chat conversations, messages of a conversation are ordered by them.
+ */
+@ApplicationScoped
+public class ChatSequences {
+
+    private static final String KEY_FORMAT = "Chat sequence {%s}";
+
+    private final ValueCommands<String, Long> valueCommands;
+
+    ChatSequences(RedisDataSource redisDataSource) {
+        this.valueCommands = redisDataSource.value(Long.class);
+    }
+
+    public long next(String conversation) {
+        return valueCommands.incr(String.format(KEY_FORMAT, conversation));
+    }
+}
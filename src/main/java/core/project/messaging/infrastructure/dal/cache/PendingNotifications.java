@@ -0,0 +1,22 @@
+package core.project.messaging.infrastructure.dal.cache;
+
+import core.project.messaging.domain.user.value_objects.Username;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Notifications for users which were offline at the moment of publication, delivered on their next connect.
+ */
+public interface PendingNotifications {
+
+    /**
+     * Appends the same entries to the queues of all recipients, oldest entries are dropped when a queue is full.
+     */
+    void push(Collection<Username> recipients, List<String> entries);
+
+    /**
+     * Removes and returns up to {@code count} oldest entries of the user.
+     */
+    List<String> drain(Username recipient, int count);
+}
@@ -0,0 +1,21 @@
+package core.project.messaging.infrastructure.dal.cache;
+
+import java.time.Duration;
+
+/**
+ * Global rate limit budget shared by all nodes of the cluster.
+ * Nodes take tokens in batches (leases) and spend them locally.
+ */
+public interface RateLimitLeases {
+
+    /**
+     * Takes up to {@code requested} tokens from the budget of the subject in the specified window.
+     * Only granted tokens are taken from the budget, so the rest stays available for other nodes.
+     *
+     * @param window number of the window, equal on all nodes
+     * @param windowLength length of the window, the budget expires after it
+     * @param limit total count of tokens per window
+     * @return count of granted tokens, zero if budget is exhausted
+     */
+    int lease(String subject, long window, Duration windowLength, int requested, int limit);
+}
@@ -2,12 +2,16 @@ package core.project.messaging.infrastructure.dal.cache;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import core.project.messaging.domain.commons.containers.StatusPair;
+import core.project.messaging.domain.user.enumerations.RequestOutcome;
 import core.project.messaging.domain.user.repositories.PartnershipRequestsRepository;
+import core.project.messaging.domain.user.value_objects.PartnershipRequestsPage;
 import core.project.messaging.domain.user.value_objects.Username;
 import io.quarkus.redis.datasource.RedisDataSource;
 import io.quarkus.redis.datasource.hash.HashCommands;
+import io.vertx.mutiny.redis.client.Response;
 import jakarta.enterprise.context.ApplicationScoped;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -16,12 +20,50 @@ public class RedisPartnershipRequestsRepository implements PartnershipRequestsRe
 
     private static final String KEY_FORMAT = "Partnership requests {%s}";
 
+    /**
+     * KEYS: requests of the addressee, requests of the addresser.
+     * ARGV: addresser, addressee, message, notice stored for the addressee on match (empty for none).
+     * Returns 0 for a retry, 1 for a stored request and 2 for a match.
+     */
+    private static final String REQUEST_SCRIPT = """
+            if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then return 0 end
+            if redis.call('HDEL', KEYS[2], ARGV[2]) == 1 then
+                if ARGV[4] ~= '' then redis.call('HSET', KEYS[1], ARGV[1], ARGV[4]) end
+                return 2
+            end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])
+            return 1
+            """;
+
+    private final RedisDataSource redisDataSource;
+
     private final HashCommands<String, String, String> hashCommands;
 
     RedisPartnershipRequestsRepository(RedisDataSource redisDataSource) {
+        this.redisDataSource = redisDataSource;
         this.hashCommands = redisDataSource.hash(new TypeReference<>(){});
     }
 
+    /**
+     * Single round trip, so concurrent mutual requests can`t both be stored and exactly one of them matches.
+     */
+    @Override
+    public RequestOutcome request(Username addressee, Username addresser, String message, String matchNotice) {
+        Response response = redisDataSource.execute("EVAL", REQUEST_SCRIPT, "2",
+                String.format(KEY_FORMAT, addressee.username()),
+                String.format(KEY_FORMAT, addresser.username()),
+                addresser.username(),
+                addressee.username(),
+                Objects.requireNonNullElse(message, ""),
+                Objects.requireNonNullElse(matchNotice, ""));
+
+        return switch (response.toInteger()) {
+            case 0 -> RequestOutcome.RETRIED;
+            case 2 -> RequestOutcome.MATCHED;
+            default -> RequestOutcome.PENDING;
+        };
+    }
+
     @Override
     public void put(Username addressee, Username addresser, String message) {
         hashCommands.hset(String.format(KEY_FORMAT, addressee.username()), addresser.username(), message);
@@ -42,6 +84,28 @@ public class RedisPartnershipRequestsRepository implements PartnershipRequestsRe
         return hashCommands.hgetall(String.format(KEY_FORMAT, addressee.username()));
     }
 
+    /**
+     * Reads page of requests with HSCAN. COUNT is only a hint for Redis: small hashes are returned whole,
+     * but their size is bounded by the hash listpack limit.
+     */
+    @Override
+    public PartnershipRequestsPage page(Username addressee, String cursor, int count) {
+        String key = String.format(KEY_FORMAT, addressee.username());
+        Map<String, String> requests = new LinkedHashMap<>();
+        String next = cursor;
+        do {
+            Response response = redisDataSource.execute("HSCAN", key, next, "COUNT", String.valueOf(count));
+            next = response.get(0).toString();
+
+            Response entries = response.get(1);
+            for (int i = 0; i + 1 < entries.size(); i += 2) {
+                requests.put(entries.get(i).toString(), entries.get(i + 1).toString());
+            }
+        } while (requests.isEmpty() && !PartnershipRequestsPage.INITIAL_CURSOR.equals(next));
+
+        return new PartnershipRequestsPage(requests, next);
+    }
+
     @Override
     public void delete(Username addressee, Username addresser) {
         hashCommands.hdel(String.format(KEY_FORMAT, addressee.username()), addresser.username());
@@ -0,0 +1,84 @@
+package core.project.messaging.infrastructure.dal.cache;
+
+import core.project.messaging.domain.user.value_objects.Username;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.list.ListCommands;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Capped Redis list per recipient, entries of many recipients are pushed by a single script call per batch.
+ */
+@ApplicationScoped
+public class RedisPendingNotifications implements PendingNotifications {
+
+    private static final String KEY_FORMAT = "Pending notifications {%s}";
+
+    private static final int PUSH_BATCH_SIZE = 512;
+
+    private static final String PUSH_SCRIPT = """
+            local capacity = tonumber(ARGV[1])
+            local ttl = tonumber(ARGV[2])
+            for _, key in ipairs(KEYS) do
+                for i = 3, #ARGV do redis.call('RPUSH', key, ARGV[i]) end
+                redis.call('LTRIM', key, -capacity, -1)
+                redis.call('EXPIRE', key, ttl)
+            end
+            return #KEYS
+            """;
+
+    @ConfigProperty(name = "messaging.notifications.pending.capacity", defaultValue = "100")
+    int capacity;
+
+    @ConfigProperty(name = "messaging.notifications.pending.ttl", defaultValue = "P7D")
+    Duration ttl;
+
+    private final RedisDataSource redisDataSource;
+
+    private final ListCommands<String, String> listCommands;
+
+    RedisPendingNotifications(RedisDataSource redisDataSource) {
+        this.redisDataSource = redisDataSource;
+        this.listCommands = redisDataSource.list(String.class);
+    }
+
+    @Override
+    public void push(Collection<Username> recipients, List<String> entries) {
+        if (recipients.isEmpty() || entries.isEmpty()) return;
+
+        List<Username> batch = new ArrayList<>(Math.min(recipients.size(), PUSH_BATCH_SIZE));
+        for (Username recipient : recipients) {
+            batch.add(recipient);
+            if (batch.size() == PUSH_BATCH_SIZE) {
+                pushBatch(batch, entries);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) pushBatch(batch, entries);
+    }
+
+    private void pushBatch(List<Username> batch, List<String> entries) {
+        List<String> args = new ArrayList<>(batch.size() + entries.size() + 4);
+        args.add(PUSH_SCRIPT);
+        args.add(String.valueOf(batch.size()));
+        for (Username recipient : batch) args.add(String.format(KEY_FORMAT, recipient.username()));
+        args.add(String.valueOf(capacity));
+        args.add(String.valueOf(ttl.toSeconds()));
+        args.addAll(entries);
+
+        redisDataSource.execute("EVAL", args.toArray(String[]::new));
+    }
+
+    @Override
+    public List<String> drain(Username recipient, int count) {
+        List<String> entries = listCommands.lpop(String.format(KEY_FORMAT, recipient.username()), count);
+        return Objects.isNull(entries) ? List.of() : entries;
+    }
+}
@@ -0,0 +1,38 @@
+package core.project.messaging.infrastructure.dal.cache;
+
+import io.quarkus.redis.datasource.RedisDataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Duration;
+
+@ApplicationScoped
+public class RedisRateLimitLeases implements RateLimitLeases {
+
+    private static final String KEY_FORMAT = "Rate limit {%s} %d";
+
+    /**
+     * Grants what is left of the budget, not more than requested, and sets the expiry together with the first grant.
+     */
+    private static final String LEASE_SCRIPT = """
+            local consumed = tonumber(redis.call('GET', KEYS[1]) or '0')
+            local granted = math.min(tonumber(ARGV[1]), tonumber(ARGV[2]) - consumed)
+            if granted <= 0 then return 0 end
+            redis.call('INCRBY', KEYS[1], granted)
+            if consumed == 0 then redis.call('PEXPIRE', KEYS[1], ARGV[3]) end
+            return granted
+            """;
+
+    private final RedisDataSource redisDataSource;
+
+    RedisRateLimitLeases(RedisDataSource redisDataSource) {
+        this.redisDataSource = redisDataSource;
+    }
+
+    @Override
+    public int lease(String subject, long window, Duration windowLength, int requested, int limit) {
+        String key = String.format(KEY_FORMAT, subject, window);
+        return redisDataSource.execute("EVAL", LEASE_SCRIPT, "1", key,
+                        String.valueOf(requested), String.valueOf(limit), String.valueOf(windowLength.multipliedBy(2).toMillis()))
+                .toInteger();
+    }
+}
@@ -0,0 +1,182 @@
+package core.project.messaging.infrastructure.dal.cache;
+
+import core.project.messaging.domain.user.value_objects.Username;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.hash.HashCommands;
+import io.quarkus.redis.datasource.keys.KeyCommands;
+import io.quarkus.redis.datasource.set.SetCommands;
+import io.quarkus.redis.datasource.value.ValueCommands;
+import io.vertx.mutiny.redis.client.Response;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every user has a hash of nodes with the count of its sessions on each of them,
+ * and every node has a set of users connected to it, used for eviction.
+ * Admission and removal are Lua scripts, so the limit of sessions is never exceeded by concurrent connects.
+ * <p>
+ * Every node keeps a liveness key with a TTL. Entries of nodes whose key expired, e.g. crashed ones,
+ * are skipped and deleted by the scripts, and the set of users of such a node expires with its liveness key.
+ * Scripts read liveness keys of other nodes, so Redis Cluster is not supported.
+ */
+@ApplicationScoped
+public class RedisSessionDirectory implements SessionDirectory {
+
+    private static final String USER_KEY_FORMAT = "Session devices %s";
+
+    private static final String NODE_KEY_FORMAT = "Session node %s";
+
+    private static final String ALIVE_KEY_PREFIX = "Messaging node alive ";
+
+    private static final int LOCATE_BATCH_SIZE = 512;
+
+    private static final String REGISTER_SCRIPT = """
+            local total = 0
+            local entries = redis.call('HGETALL', KEYS[1])
+            for i = 1, #entries, 2 do
+                local node = entries[i]
+                if node == ARGV[1] or redis.call('EXISTS', ARGV[4] .. node) == 1 then
+                    total = total + tonumber(entries[i + 1])
+                else
+                    redis.call('HDEL', KEYS[1], node)
+                end
+            end
+            if total >= tonumber(ARGV[2]) then return 0 end
+            redis.call('HINCRBY', KEYS[1], ARGV[1], 1)
+            redis.call('SADD', KEYS[2], ARGV[3])
+            return total + 1
+            """;
+
+    private static final String UNREGISTER_SCRIPT = """
+            local count = redis.call('HINCRBY', KEYS[1], ARGV[1], -1)
+            if count <= 0 then
+                redis.call('HDEL', KEYS[1], ARGV[1])
+                redis.call('SREM', KEYS[2], ARGV[2])
+            end
+            return count
+            """;
+
+    private static final String LOCATE_SCRIPT = """
+            local alive = {}
+            local nodes = {}
+            for i, key in ipairs(KEYS) do
+                local owners = {}
+                for _, node in ipairs(redis.call('HKEYS', key)) do
+                    if alive[node] == nil then alive[node] = redis.call('EXISTS', ARGV[1] .. node) == 1 end
+                    if alive[node] then
+                        owners[#owners + 1] = node
+                    else
+                        redis.call('HDEL', key, node)
+                    end
+                end
+                nodes[i] = owners
+            end
+            return nodes
+            """;
+
+    private final RedisDataSource redisDataSource;
+
+    private final HashCommands<String, String, String> hashCommands;
+
+    private final SetCommands<String, String> setCommands;
+
+    private final KeyCommands<String> keyCommands;
+
+    private final ValueCommands<String, String> valueCommands;
+
+    RedisSessionDirectory(RedisDataSource redisDataSource) {
+        this.redisDataSource = redisDataSource;
+        this.hashCommands = redisDataSource.hash(String.class);
+        this.setCommands = redisDataSource.set(String.class);
+        this.keyCommands = redisDataSource.key();
+        this.valueCommands = redisDataSource.value(String.class);
+    }
+
+    @Override
+    public int register(Username username, String node, int limit) {
+        Response response = redisDataSource.execute("EVAL", REGISTER_SCRIPT, "2",
+                userKey(username.username()), nodeKey(node),
+                node, String.valueOf(limit), username.username(), ALIVE_KEY_PREFIX);
+
+        return response.toInteger();
+    }
+
+    @Override
+    public void unregister(Username username, String node) {
+        redisDataSource.execute("EVAL", UNREGISTER_SCRIPT, "2",
+                userKey(username.username()), nodeKey(node),
+                node, username.username());
+    }
+
+    @Override
+    public Set<String> locate(Username username) {
+        return locateAll(List.of(username)).getOrDefault(username, Set.of());
+    }
+
+    @Override
+    public Map<Username, Set<String>> locateAll(Collection<Username> usernames) {
+        Map<Username, Set<String>> located = new HashMap<>();
+        List<Username> batch = new ArrayList<>(Math.min(usernames.size(), LOCATE_BATCH_SIZE));
+        for (Username username : usernames) {
+            batch.add(username);
+            if (batch.size() == LOCATE_BATCH_SIZE) {
+                locateBatch(batch, located);
+                batch.clear();
+            }
+        }
+
+        if (!batch.isEmpty()) locateBatch(batch, located);
+        return located;
+    }
+
+    private void locateBatch(List<Username> batch, Map<Username, Set<String>> located) {
+        String[] args = new String[batch.size() + 3];
+        args[0] = LOCATE_SCRIPT;
+        args[1] = String.valueOf(batch.size());
+        for (int i = 0; i < batch.size(); i++) args[i + 2] = userKey(batch.get(i).username());
+        args[batch.size() + 2] = ALIVE_KEY_PREFIX;
+
+        Response response = redisDataSource.execute("EVAL", args);
+        for (int i = 0; i < batch.size(); i++) {
+            Response nodes = response.get(i);
+            if (nodes == null || nodes.size() == 0) continue;
+
+            Set<String> owners = new HashSet<>(nodes.size());
+            for (Response node : nodes) owners.add(node.toString());
+            located.put(batch.get(i), owners);
+        }
+    }
+
+    @Override
+    public void heartbeat(String node, Duration ttl) {
+        valueCommands.psetex(ALIVE_KEY_PREFIX + node, ttl.toMillis(), "1");
+        keyCommands.pexpire(nodeKey(node), ttl);
+    }
+
+    @Override
+    public void evict(String node) {
+        String nodeKey = nodeKey(node);
+        Set<String> usernames = setCommands.smembers(nodeKey);
+        for (String username : usernames) {
+            hashCommands.hdel(userKey(username), node);
+        }
+
+        keyCommands.del(nodeKey, ALIVE_KEY_PREFIX + node);
+    }
+
+    private static String userKey(String username) {
+        return String.format(USER_KEY_FORMAT, username);
+    }
+
+    private static String nodeKey(String node) {
+        return String.format(NODE_KEY_FORMAT, node);
+    }
+}
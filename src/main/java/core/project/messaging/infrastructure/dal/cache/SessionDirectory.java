@@ -0,0 +1,51 @@
+package core.project.messaging.infrastructure.dal.cache;
+
+import core.project.messaging.domain.user.value_objects.Username;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cluster-wide directory of connected users, mapping every username to the nodes which hold its web socket sessions.
+ * A user may be connected from several devices, possibly to different nodes.
+ */
+public interface SessionDirectory {
+
+    /**
+     * Atomically registers one more session of the user on the specified node.
+     *
+     * @return count of sessions of the user in the cluster including the registered one,
+     * 0 if user already has the specified count of sessions
+     */
+    int register(Username username, String node, int limit);
+
+    /**
+     * Removes one session of the user registered on the specified node.
+     */
+    void unregister(Username username, String node);
+
+    /**
+     * @return nodes holding sessions of the user, empty if user is offline
+     */
+    Set<String> locate(Username username);
+
+    /**
+     * Locates many users in a single round trip per batch.
+     *
+     * @return nodes of connected users, offline users are absent
+     */
+    Map<Username, Set<String>> locateAll(Collection<Username> usernames);
+
+    /**
+     * Marks the node alive for the specified time. Registrations of nodes which stopped to send heartbeats
+     * are ignored by lookups and admission, so a crashed node does not keep its users online.
+     */
+    void heartbeat(String node, Duration ttl);
+
+    /**
+     * Removes all registrations of the specified node, used on node startup and shutdown to clean up stale entries.
+     */
+    void evict(String node);
+}
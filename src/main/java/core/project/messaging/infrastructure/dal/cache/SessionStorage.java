@@ -5,33 +5,94 @@ import core.project.messaging.domain.user.value_objects.Username;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.websocket.Session;
 
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Local web socket sessions of users, every user may be connected from several devices.
+ * <p>
+ * Sessions of a user are kept in an immutable list which is replaced atomically on admission and removal,
+ * so readers iterate a snapshot without locks.
+ */
 @ApplicationScoped
 public class SessionStorage {
 
-    private static final ConcurrentHashMap<Username, Session> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Username, List<Session>> sessions = new ConcurrentHashMap<>();
 
-    public void put(final Session session, final User user) {
+    /**
+     * Atomically adds session of the user unless the user already has the specified count of local sessions.
+     *
+     * @return false if the limit is reached
+     */
+    public boolean add(final Session session, final User user, final int limit) {
         session.getUserProperties().put(SessionProperties.USER_ACCOUNT.key(), user);
-        sessions.put(user.username(), session);
+
+        boolean[] isAdded = new boolean[1];
+        sessions.compute(user.username(), (username, current) -> {
+            if (current == null) {
+                isAdded[0] = true;
+                return List.of(session);
+            }
+            if (current.size() >= limit || current.contains(session)) return current;
+
+            List<Session> updated = new ArrayList<>(current.size() + 1);
+            updated.addAll(current);
+            updated.add(session);
+            isAdded[0] = true;
+            return List.copyOf(updated);
+        });
+
+        return isAdded[0];
+    }
+
+    /**
+     * @return snapshot of the user sessions, empty if user is not connected to this node
+     */
+    public List<Session> get(final Username username) {
+        return sessions.getOrDefault(username, List.of());
     }
 
-    public Optional<Session> get(final Username username) {
-        return Optional.ofNullable(sessions.get(username));
+    /**
+     * @return snapshot of all sessions connected to this node
+     */
+    public List<Session> all() {
+        List<Session> all = new ArrayList<>();
+        sessions.values().forEach(all::addAll);
+        return all;
     }
 
     public boolean contains(final Username username) {
         return sessions.containsKey(username);
     }
 
-    public void remove(final Username username) {
-        sessions.remove(username);
+    /**
+     * Removes the specified session of the user, so closing of a rejected session does not drop the admitted ones.
+     */
+    public boolean remove(final Username username, final Session session) {
+        boolean[] isRemoved = new boolean[1];
+        sessions.computeIfPresent(username, (key, current) -> {
+            if (!current.contains(session)) return current;
+
+            isRemoved[0] = true;
+            if (current.size() == 1) return null;
+
+            List<Session> updated = new ArrayList<>(current);
+            updated.remove(session);
+            return List.copyOf(updated);
+        });
+
+        return isRemoved[0];
     }
 
     public enum SessionProperties {
-        USER_ACCOUNT("account");
+        USER_ACCOUNT("account"),
+        OUTBOUND_QUEUE("outbound-queue"),
+        MAILBOX("mailbox"),
+        TOKEN("token"),
+        INBOX_CURSOR("inbox-cursor"),
+        HEARTBEAT("heartbeat"),
+        RECENT_REQUESTS("recent-requests");
 
         private final String key;
 
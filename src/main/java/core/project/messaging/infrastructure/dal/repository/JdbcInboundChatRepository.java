@@ -0,0 +1,219 @@
+package core.project.messaging.infrastructure.dal.repository;
+
+import com.hadzhy.jetquerious.jdbc.JetQuerious;
+import core.project.messaging.domain.commons.containers.Result;
+import core.project.messaging.domain.user.repositories.InboundChatRepository;
+import core.project.messaging.domain.user.value_objects.ChatMessage;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind, append-only store of chat messages.
+ * <p>
+ * Messages are buffered in a bounded queue and a single writer persists them with multi-row inserts:
+ * under load every round trip carries up to {@code batch-size} rows, while a lone message is written immediately.
+ * When the buffer is full new messages are dropped instead of blocking delivery.
+ * <p>
+ * A batch which failed to be written is kept and retried with exponential backoff starting at {@code retry-backoff},
+ * it is dropped only after {@code max-attempts} failures. Every message which is not persisted is counted
+ * in {@code messaging.chat.messages.dropped}.
+ */
+@Startup
+@ApplicationScoped
+public class JdbcInboundChatRepository implements InboundChatRepository {
+
+    private static final String[] COLUMNS = {"conversation_id", "seq", "sender", "addressee", "text", "creation_date"};
+
+    private static final String INSERT_PREFIX = "INSERT INTO ChatMessages (%s) VALUES "
+            .formatted(String.join(", ", COLUMNS));
+
+    private static final String ROW = "(" + String.join(", ", Collections.nCopies(COLUMNS.length, "?")) + ")";
+
+    @ConfigProperty(name = "messaging.chat.write-behind.capacity", defaultValue = "65536")
+    int capacity;
+
+    @ConfigProperty(name = "messaging.chat.write-behind.batch-size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "messaging.chat.write-behind.max-attempts", defaultValue = "5")
+    int maxAttempts;
+
+    @ConfigProperty(name = "messaging.chat.write-behind.retry-backoff", defaultValue = "PT0.2S")
+    Duration retryBackoff;
+
+    private final Inserts inserts;
+
+    private final LongCounter dropped;
+
+    private BlockingQueue<ChatMessage> buffer;
+
+    private String fullBatchSQL;
+
+    private Thread writer;
+
+    /**
+     * Batch which the writer was retrying when it stopped, written by {@link #stop()} after the writer has terminated.
+     */
+    private volatile List<ChatMessage> unwritten = List.of();
+
+    private volatile boolean isRunning;
+
+    @Inject
+    JdbcInboundChatRepository(OpenTelemetry openTelemetry) {
+        this(new JdbcInserts(JetQuerious.instance()), openTelemetry.getMeter("messaging")
+                .counterBuilder("messaging.chat.messages.dropped")
+                .setDescription("Chat messages which were not persisted because the write-behind buffer was full or writes kept failing.")
+                .build());
+    }
+
+    JdbcInboundChatRepository(Inserts inserts, LongCounter dropped) {
+        this.inserts = inserts;
+        this.dropped = dropped;
+    }
+
+    @PostConstruct
+    void start() {
+        buffer = new ArrayBlockingQueue<>(capacity);
+        fullBatchSQL = batchSQL(batchSize);
+        isRunning = true;
+        writer = Thread.ofPlatform().daemon().name("chat-writer").start(this::run);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        isRunning = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        if (writer.isAlive()) {
+            int lost = buffer.size();
+            dropped.add(lost);
+            Log.errorf("Chat writer did not stop in time, %d buffered chat messages are not persisted.", lost);
+            return;
+        }
+
+        List<ChatMessage> batch = new ArrayList<>(unwritten);
+        do {
+            if (!batch.isEmpty() && !write(batch)) drop(batch);
+            batch.clear();
+        } while (buffer.drainTo(batch, batchSize) > 0);
+    }
+
+    @Override
+    public void append(ChatMessage message) {
+        if (buffer.offer(message)) return;
+
+        dropped.add(1);
+        Log.errorf("Chat write-behind buffer is full, message %d of %s is not persisted.", message.seq(), message.conversation());
+    }
+
+    private void run() {
+        List<ChatMessage> batch = new ArrayList<>(batchSize);
+        int attempts = 0;
+        while (isRunning) {
+            try {
+                if (batch.isEmpty()) {
+                    ChatMessage first = buffer.poll(1, TimeUnit.SECONDS);
+                    if (first == null) continue;
+
+                    batch.add(first);
+                    buffer.drainTo(batch, batchSize - 1);
+                }
+
+                if (write(batch)) {
+                    batch.clear();
+                    attempts = 0;
+                    continue;
+                }
+
+                if (++attempts >= maxAttempts) {
+                    drop(batch);
+                    batch.clear();
+                    attempts = 0;
+                    continue;
+                }
+
+                Thread.sleep(retryBackoff.multipliedBy(1L << (attempts - 1)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        unwritten = List.copyOf(batch);
+    }
+
+    private void drop(List<ChatMessage> batch) {
+        dropped.add(batch.size());
+        Log.errorf("%d chat messages are not persisted after %d attempts.", batch.size(), maxAttempts);
+    }
+
+    /**
+     * @return false if the batch was not written and may be retried
+     */
+    private boolean write(List<ChatMessage> batch) {
+        Object[] params = new Object[batch.size() * COLUMNS.length];
+        int i = 0;
+        for (ChatMessage message : batch) {
+            params[i++] = message.conversation();
+            params[i++] = message.seq();
+            params[i++] = message.sender().username();
+            params[i++] = message.addressee().username();
+            params[i++] = message.text();
+            params[i++] = message.creationDate();
+        }
+
+        String sql = batch.size() == batchSize ? fullBatchSQL : batchSQL(batch.size());
+        try {
+            var result = inserts.insert(sql, params);
+            if (result.success()) return true;
+
+            Log.errorf("Error saving %d chat messages: %s", batch.size(), result.throwable().getMessage());
+        } catch (Exception e) {
+            Log.errorf("Unexpected error saving %d chat messages: %s", batch.size(), e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Multi-row insert, {@code INSERT INTO ChatMessages (...) VALUES (?, ...), (?, ...)}.
+     */
+    static String batchSQL(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + (ROW.length() + 2) * rows);
+        sql.append(INSERT_PREFIX).append(ROW);
+        for (int i = 1; i < rows; i++) sql.append(", ").append(ROW);
+        return sql.toString();
+    }
+
+    /**
+     * Executes multi-row insert built by {@link #batchSQL(int)}.
+     */
+    public interface Inserts {
+        Result<Boolean, Throwable> insert(String sql, Object[] params);
+    }
+
+    private record JdbcInserts(JetQuerious jet) implements Inserts {
+
+        @Override
+        public Result<Boolean, Throwable> insert(String sql, Object[] params) {
+            var result = jet.write(sql, params);
+            if (!result.success()) return Result.failure(result.throwable());
+
+            return Result.success(true);
+        }
+    }
+}
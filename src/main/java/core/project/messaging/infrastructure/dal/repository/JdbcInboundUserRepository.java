@@ -15,6 +15,8 @@ public class JdbcInboundUserRepository implements InboundUserRepository {
 
     private final JetQuerious jet;
 
+    private final PartnershipGraph partnershipGraph;
+
     static final String INSERT_NEW_PARTNERSHIP = insert()
             .into("UserPartnership")
             .columns("user_id", "partner_id", "created_at")
@@ -31,29 +33,37 @@ public class JdbcInboundUserRepository implements InboundUserRepository {
             .build()
             .sql();
 
-    JdbcInboundUserRepository() {
+    JdbcInboundUserRepository(PartnershipGraph partnershipGraph) {
         this.jet = JetQuerious.instance();
+        this.partnershipGraph = partnershipGraph;
     }
 
     @Override
     public void addPartnership(User firstUser, User secondUser) {
-        final boolean doNotMatch = !firstUser.partners().contains(secondUser) || !secondUser.partners().contains(firstUser);
+        final boolean doNotMatch = !firstUser.containsPartner(secondUser) || !secondUser.containsPartner(firstUser);
         if (doNotMatch) throw new IllegalArgumentException("Illegal function usage.");
 
-        jet.write(INSERT_NEW_PARTNERSHIP,
-                        firstUser.id().toString(),
-                        secondUser.id().toString(),
-                        LocalDateTime.now())
-                .ifFailure(Throwable::printStackTrace);
+        LocalDateTime createdAt = LocalDateTime.now();
+        var result = jet.write(INSERT_NEW_PARTNERSHIP,
+                firstUser.id().toString(),
+                secondUser.id().toString(),
+                createdAt);
+
+        result.ifFailure(Throwable::printStackTrace);
+        if (result.success())
+            partnershipGraph.added(firstUser.id(), firstUser.username(), secondUser.id(), secondUser.username(), createdAt);
     }
 
     @Override
     public void removePartnership(User firstUser, User secondUser) {
-        jet.write(DELETE_PARTNERSHIP,
-                        firstUser.id().toString(),
-                        secondUser.id().toString(),
-                        secondUser.id().toString(),
-                        firstUser.id().toString())
-                .ifFailure(Throwable::printStackTrace);
+        var result = jet.write(DELETE_PARTNERSHIP,
+                firstUser.id().toString(),
+                secondUser.id().toString(),
+                secondUser.id().toString(),
+                firstUser.id().toString());
+
+        result.ifFailure(Throwable::printStackTrace);
+        if (result.success())
+            partnershipGraph.removed(firstUser.id(), firstUser.username(), secondUser.id(), secondUser.username());
     }
 }
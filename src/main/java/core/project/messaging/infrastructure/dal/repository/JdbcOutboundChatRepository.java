@@ -0,0 +1,60 @@
+package core.project.messaging.infrastructure.dal.repository;
+
+import com.hadzhy.jetquerious.jdbc.JetQuerious;
+import com.hadzhy.jetquerious.sql.Order;
+import core.project.messaging.domain.commons.containers.Result;
+import core.project.messaging.domain.user.repositories.OutboundChatRepository;
+import core.project.messaging.domain.user.value_objects.ChatMessage;
+import core.project.messaging.domain.user.value_objects.Username;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static com.hadzhy.jetquerious.sql.QueryForge.select;
+
+@ApplicationScoped
+public class JdbcOutboundChatRepository implements OutboundChatRepository {
+
+    private final JetQuerious jet;
+
+    /**
+     * Keyset page over the (conversation_id, seq) primary key, cost does not depend on the depth of the page.
+     */
+    static final String HISTORY = select()
+            .column("conversation_id")
+            .column("seq")
+            .column("sender")
+            .column("addressee")
+            .column("text")
+            .column("creation_date")
+            .from("ChatMessages")
+            .where("conversation_id = ?")
+            .and("seq < ?")
+            .orderBy("seq", Order.DESC)
+            .limitAndOffset()
+            .sql();
+
+    JdbcOutboundChatRepository() {
+        this.jet = JetQuerious.instance();
+    }
+
+    @Override
+    public Result<List<ChatMessage>, Throwable> history(String conversation, long beforeSeq, int limit) {
+        var result = jet.readListOf(HISTORY, this::chatMessageMapper, conversation, beforeSeq, limit, 0);
+        return new Result<>(result.value(), result.throwable(), result.success());
+    }
+
+    private ChatMessage chatMessageMapper(ResultSet rs) throws SQLException {
+        return new ChatMessage(
+                rs.getString("conversation_id"),
+                rs.getLong("seq"),
+                new Username(rs.getString("sender")),
+                new Username(rs.getString("addressee")),
+                rs.getString("text"),
+                rs.getObject("creation_date", Timestamp.class).toLocalDateTime()
+        );
+    }
+}
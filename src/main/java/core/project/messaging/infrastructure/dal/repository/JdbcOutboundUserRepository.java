@@ -3,6 +3,7 @@ package core.project.messaging.infrastructure.dal.repository;
 import com.hadzhy.jetquerious.jdbc.JetQuerious;
 import core.project.messaging.domain.commons.containers.Result;
 import core.project.messaging.domain.user.entities.User;
+import core.project.messaging.domain.user.enumerations.PartnersOrder;
 import core.project.messaging.domain.user.repositories.OutboundUserRepository;
 import core.project.messaging.domain.user.value_objects.*;
 import io.quarkus.logging.Log;
@@ -16,13 +17,14 @@ import java.util.Objects;
 import java.util.UUID;
 
 import static com.hadzhy.jetquerious.sql.QueryForge.select;
-import static com.hadzhy.jetquerious.sql.QueryForge.selectDistinct;
 
 @ApplicationScoped
 public class JdbcOutboundUserRepository implements OutboundUserRepository {
 
     private final JetQuerious jet;
 
+    private final PartnershipGraph partnershipGraph;
+
     static final String FIND_BY_USERNAME = select()
             .all()
             .from("UserAccount")
@@ -30,51 +32,32 @@ public class JdbcOutboundUserRepository implements OutboundUserRepository {
             .build()
             .sql();
 
-    static final String IS_PARTNERSHIP_EXISTS = select()
-            .count("*")
-            .from("UserPartnership")
-            .where("(user_id = ?")
-            .and("partner_id = ?)")
-            .or("(user_id = ?")
-            .and("partner_id = ?)")
-            .build()
-            .sql();
+    JdbcOutboundUserRepository(PartnershipGraph partnershipGraph) {
+        this.jet = JetQuerious.instance();
+        this.partnershipGraph = partnershipGraph;
+    }
 
-    static final String GET_PARTNERS_USERNAMES = selectDistinct()
-            .caseStatement()
-            .when("user_account.username = ?").then("partner.username")
-            .elseCase("user_account.username")
-            .endAs("username")
-            .fromAs("UserPartnership", "up")
-            .joinAs("UserAccount", "partner", "up.partner_id = partner.id")
-            .joinAs("UserAccount", "user_account", "up.user_id = user_account.id")
-            .where("user_account.username = ?")
-            .or("partner.username = ?")
-            .limitAndOffset()
-            .sql();
+    /**
+     * Partners are served from {@link PartnershipGraph}, the count is the size of the in-memory partner set.
+     */
+    @Override
+    public Result<PartnersPage, Throwable> partners(Username username, PartnersOrder order, String cursor, int limit) {
+        return partnershipGraph.page(Objects.requireNonNull(username), Objects.requireNonNull(order), cursor, limit);
+    }
 
-    JdbcOutboundUserRepository() {
-        this.jet = JetQuerious.instance();
+    @Override
+    public Result<List<String>, Throwable> allPartners(Username username) {
+        return partnershipGraph.partners(Objects.requireNonNull(username));
     }
 
     @Override
-    public Result<List<String>, Throwable> listOfPartners(Username username, int limit, int offSet) {
-        var result = jet.readListOf(GET_PARTNERS_USERNAMES,
-                rs -> rs.getString("username"),
-                Objects.requireNonNull(username.username()), username.username(), username.username(), limit, offSet
-        );
-        return new Result<>(result.value(), result.throwable(), result.success());
+    public Result<List<PartnerSuggestion>, Throwable> suggestions(Username username, int limit) {
+        return partnershipGraph.suggestions(Objects.requireNonNull(username), limit);
     }
 
     @Override
     public boolean havePartnership(User user, User partner) {
-        return jet.readObjectOf(IS_PARTNERSHIP_EXISTS,
-                        Integer.class,
-                        user.id().toString(),
-                        partner.id().toString(),
-                        partner.id().toString(),
-                        user.id().toString())
-                .mapSuccess(count -> count != null && count > 0)
+        return partnershipGraph.contains(user.id(), partner.id())
                 .orElseGet(() -> {
                     Log.error("Error checking partnership existence.");
                     return false;
@@ -0,0 +1,117 @@
+package core.project.messaging.infrastructure.dal.repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Count of mutual partners between one user and every partner of the user partners.
+ * <p>
+ * Counts are changed incrementally when partnerships are added or removed. The best {@link #TOP_K} candidates
+ * are selected once and then kept up to date by the changes: a change is applied to the selected top
+ * unless it may move some other candidate across its threshold, only then all counts are scanned again.
+ */
+public final class MutualPartners {
+
+    public static final int TOP_K = 25;
+
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingInt(Candidate::mutualPartners).reversed()
+            .thenComparing(Candidate::id);
+
+    private final Map<UUID, Score> scores = new HashMap<>();
+
+    /**
+     * Selected candidates, best first, null if they must be selected again.
+     */
+    private List<Candidate> top;
+
+    public synchronized void change(UUID candidate, String username, int delta) {
+        Score score = scores.computeIfAbsent(candidate, id -> new Score(username));
+        score.count += delta;
+        if (score.count <= 0) scores.remove(candidate);
+        if (top != null) update(new Candidate(candidate, score.username, score.count), delta);
+    }
+
+    /**
+     * Drops the cached top, e.g. when the user got or lost a partner and the excluded candidates changed.
+     */
+    public synchronized void invalidate() {
+        top = null;
+    }
+
+    public synchronized int score(UUID candidate) {
+        Score score = scores.get(candidate);
+        return score == null ? 0 : score.count;
+    }
+
+    /**
+     * @param isExcluded candidates which must not be suggested, e.g. current partners
+     * @return up to {@code limit} candidates with the most mutual partners, limit is capped by {@link #TOP_K}
+     */
+    public synchronized List<Candidate> top(int limit, Predicate<UUID> isExcluded) {
+        if (top == null) top = select(isExcluded);
+        return List.copyOf(top.subList(0, Math.min(limit, top.size())));
+    }
+
+    /**
+     * A top which is not full holds every candidate which is not excluded, so a candidate of it may fall
+     * and be removed without a new selection. A full top may miss the candidate which replaces a falling one,
+     * and a candidate from outside, which may be excluded, must be checked if it passes the last one.
+     */
+    private void update(Candidate changed, int delta) {
+        int index = indexOf(changed.id());
+        boolean isFull = top.size() == TOP_K;
+        if (index < 0) {
+            if (delta < 0 || (isFull && BEST_FIRST.compare(changed, top.get(TOP_K - 1)) > 0)) return;
+
+            top = null;
+            return;
+        }
+        if (delta < 0 && isFull) {
+            top = null;
+            return;
+        }
+
+        if (changed.mutualPartners() > 0) top.set(index, changed);
+        else top.remove(index);
+        top.sort(BEST_FIRST);
+    }
+
+    private int indexOf(UUID candidate) {
+        for (int i = 0; i < top.size(); i++) {
+            if (top.get(i).id().equals(candidate)) return i;
+        }
+
+        return -1;
+    }
+
+    private List<Candidate> select(Predicate<UUID> isExcluded) {
+        PriorityQueue<Candidate> best = new PriorityQueue<>(TOP_K + 1, BEST_FIRST.reversed());
+        scores.forEach((id, score) -> {
+            if (isExcluded.test(id)) return;
+
+            best.offer(new Candidate(id, score.username, score.count));
+            if (best.size() > TOP_K) best.poll();
+        });
+
+        List<Candidate> selected = new ArrayList<>(best);
+        selected.sort(BEST_FIRST);
+        return selected;
+    }
+
+    public record Candidate(UUID id, String username, int mutualPartners) {}
+
+    private static final class Score {
+        private final String username;
+        private int count;
+
+        private Score(String username) {
+            this.username = username;
+        }
+    }
+}
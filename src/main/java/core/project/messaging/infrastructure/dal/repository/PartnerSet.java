@@ -0,0 +1,189 @@
+package core.project.messaging.infrastructure.dal.repository;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Open addressing set of partner ids stored as pairs of longs, so a user with thousands of partners
+ * costs a few primitive arrays instead of a node, a boxed key and a UUID object per partner.
+ * Every partner carries its username and the time since which the partnership exists, in epoch millis.
+ * <p>
+ * The nil UUID marks an empty slot and therefore can`t be stored.
+ * Methods synchronize on the set, so callers may lock it to read several values consistently.
+ */
+public final class PartnerSet {
+
+    private static final int MIN_SLOTS = 4;
+
+    private long[] mostSigBits;
+
+    private long[] leastSigBits;
+
+    private long[] since;
+
+    private String[] usernames;
+
+    private int size;
+
+    private int version;
+
+    public PartnerSet(int expectedSize) {
+        int slots = MIN_SLOTS;
+        while (slots < expectedSize * 2) slots <<= 1;
+
+        this.mostSigBits = new long[slots];
+        this.leastSigBits = new long[slots];
+        this.since = new long[slots];
+        this.usernames = new String[slots];
+    }
+
+    public synchronized boolean contains(UUID id) {
+        return indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits()) >= 0;
+    }
+
+    public boolean add(UUID id) {
+        return add(id, null, 0);
+    }
+
+    public synchronized boolean add(UUID id, String username, long sinceMillis) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        if (msb == 0 && lsb == 0) throw new IllegalArgumentException("Nil id can`t be stored.");
+        if (indexOf(msb, lsb) >= 0) return false;
+
+        if ((size + 1) * 2 > mostSigBits.length) resize(mostSigBits.length << 1);
+        insert(msb, lsb, username, sinceMillis);
+        size++;
+        version++;
+        return true;
+    }
+
+    /**
+     * Removes the id with backward shift, so lookups never need tombstones.
+     */
+    public synchronized boolean remove(UUID id) {
+        int hole = indexOf(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (hole < 0) return false;
+
+        int mask = mostSigBits.length - 1;
+        int next = (hole + 1) & mask;
+        while (!isEmpty(next)) {
+            int ideal = slot(mostSigBits[next], leastSigBits[next]);
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                mostSigBits[hole] = mostSigBits[next];
+                leastSigBits[hole] = leastSigBits[next];
+                since[hole] = since[next];
+                usernames[hole] = usernames[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        mostSigBits[hole] = 0;
+        leastSigBits[hole] = 0;
+        since[hole] = 0;
+        usernames[hole] = null;
+        size--;
+        version++;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Incremented by every change, so snapshots built from the set can be validated.
+     */
+    public synchronized int version() {
+        return version;
+    }
+
+    public synchronized void forEach(Visitor visitor) {
+        for (int slot = 0; slot < mostSigBits.length; slot++) {
+            if (!isEmpty(slot)) visitor.visit(new UUID(mostSigBits[slot], leastSigBits[slot]), usernames[slot], since[slot]);
+        }
+    }
+
+    /**
+     * @return copy of the partners, so callers may process them without holding the lock of the set
+     */
+    public synchronized Member[] members() {
+        Member[] members = new Member[size];
+        int i = 0;
+        for (int slot = 0; slot < mostSigBits.length; slot++) {
+            if (!isEmpty(slot)) members[i++] = new Member(new UUID(mostSigBits[slot], leastSigBits[slot]), usernames[slot], since[slot]);
+        }
+
+        return members;
+    }
+
+    public synchronized UUID[] toArray() {
+        UUID[] ids = new UUID[size];
+        int i = 0;
+        for (int slot = 0; slot < mostSigBits.length; slot++) {
+            if (!isEmpty(slot)) ids[i++] = new UUID(mostSigBits[slot], leastSigBits[slot]);
+        }
+
+        return ids;
+    }
+
+    private int indexOf(long msb, long lsb) {
+        int mask = mostSigBits.length - 1;
+        int i = slot(msb, lsb);
+        while (!isEmpty(i)) {
+            if (mostSigBits[i] == msb && leastSigBits[i] == lsb) return i;
+            i = (i + 1) & mask;
+        }
+
+        return -1;
+    }
+
+    private void insert(long msb, long lsb, String username, long sinceMillis) {
+        int mask = mostSigBits.length - 1;
+        int i = slot(msb, lsb);
+        while (!isEmpty(i)) i = (i + 1) & mask;
+
+        mostSigBits[i] = msb;
+        leastSigBits[i] = lsb;
+        usernames[i] = username;
+        since[i] = sinceMillis;
+    }
+
+    private void resize(int slots) {
+        long[] oldMostSigBits = mostSigBits;
+        long[] oldLeastSigBits = leastSigBits;
+        long[] oldSince = since;
+        String[] oldUsernames = usernames;
+        mostSigBits = new long[slots];
+        leastSigBits = new long[slots];
+        since = new long[slots];
+        usernames = new String[slots];
+
+        for (int i = 0; i < oldMostSigBits.length; i++) {
+            if (oldMostSigBits[i] != 0 || oldLeastSigBits[i] != 0)
+                insert(oldMostSigBits[i], oldLeastSigBits[i], oldUsernames[i], oldSince[i]);
+        }
+    }
+
+    private boolean isEmpty(int slot) {
+        return mostSigBits[slot] == 0 && leastSigBits[slot] == 0;
+    }
+
+    private int slot(long msb, long lsb) {
+        long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (mostSigBits.length - 1);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(UUID id, String username, long sinceMillis);
+    }
+
+    public record Member(UUID id, String username, long sinceMillis) {}
+}
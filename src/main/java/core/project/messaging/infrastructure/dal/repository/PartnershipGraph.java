@@ -0,0 +1,712 @@
+package core.project.messaging.infrastructure.dal.repository;
+
+import com.hadzhy.jetquerious.jdbc.JetQuerious;
+import core.project.messaging.domain.commons.containers.Result;
+import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException;
+import core.project.messaging.domain.commons.tuples.Pair;
+import core.project.messaging.domain.user.enumerations.PartnersOrder;
+import core.project.messaging.domain.user.value_objects.PartnerSuggestion;
+import core.project.messaging.domain.user.value_objects.PartnersPage;
+import core.project.messaging.domain.user.value_objects.Username;
+import core.project.messaging.infrastructure.ws.TimingWheel;
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.pubsub.PubSubCommands;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+import static com.hadzhy.jetquerious.sql.QueryForge.select;
+
+/**
+ * Node-local adjacency index of partnerships keyed by user id.
+ * <p>
+ * Partners of a user are loaded from Postgres on the first lookup and then kept up to date by
+ * {@link JdbcInboundUserRepository}: changes are applied locally at once and broadcast to other nodes
+ * through a Redis channel. Pub/sub delivers at most once, so loaded partners expire after
+ * {@code messaging.partners.graph.ttl} and are loaded again, either on the next lookup or by the periodic sweep.
+ * A reload is compared with the loaded partners and the difference is applied as changes, which repairs
+ * a missed change without dropping anything derived from the partners.
+ * <p>
+ * The sweep evicts users who were not looked up within the TTL, unless their partners are needed by mutual partner
+ * counts of an active user, and the least recently used ones above {@code messaging.partners.graph.max-users}.
+ * Partners of a user who went offline are evicted at once.
+ * <p>
+ * Postgres is queried outside of any lock, partners of many users are loaded by one query.
+ * The last changes are kept in a short log and the ones applied while the query was running are replayed
+ * on its result before it is installed, so no change is lost in between.
+ * <p>
+ * Pages of partners are cut from sorted snapshots, which are rebuilt only after the partners of the user change:
+ * a cursor is found by binary search, so the depth of the page does not matter.
+ * <p>
+ * Partner suggestions are users who share partners with the user. Counts of mutual partners are built once
+ * from the loaded partner sets and then moved by every partnership change, see {@link MutualPartners}.
+ */
+@ApplicationScoped
+public class PartnershipGraph {
+
+    private static final String CHANNEL = "Partnership changes";
+
+    private static final int RECENT_CHANGES = 1024;
+
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private static final int LOAD_BATCH_SIZE = 512;
+
+    static final String USER_ID = select()
+            .column("id")
+            .from("UserAccount")
+            .where("username = ?")
+            .build()
+            .sql();
+
+    @ConfigProperty(name = "messaging.partners.graph.ttl", defaultValue = "PT5M")
+    Duration ttl;
+
+    @ConfigProperty(name = "messaging.partners.graph.max-users", defaultValue = "100000")
+    int maxUsers;
+
+    LongSupplier clock = System::nanoTime;
+
+    private final Partnerships partnerships;
+
+    private final TimingWheel timingWheel;
+
+    private final PubSubCommands<Change> pubSubCommands;
+
+    private PubSubCommands.RedisSubscriber subscriber;
+
+    private volatile boolean isStopped;
+
+    private final ConcurrentHashMap<UUID, Loaded> adjacency = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Username, UUID> ids = new ConcurrentHashMap<>();
+
+    /**
+     * Orders changes against installs and evictions of partners and builds of mutual partner counts,
+     * so no change is lost or counted twice. Postgres is never queried while it is held.
+     */
+    private final Object topologyLock = new Object();
+
+    private final Change[] recentChanges = new Change[RECENT_CHANGES];
+
+    /**
+     * Count of applied changes, written under the topology lock.
+     */
+    private volatile long changes;
+
+    @Inject
+    PartnershipGraph(TimingWheel timingWheel, RedisDataSource redisDataSource) {
+        this(new JdbcPartnerships(JetQuerious.instance()), timingWheel, redisDataSource.pubsub(Change.class));
+    }
+
+    PartnershipGraph(Partnerships partnerships, TimingWheel timingWheel, PubSubCommands<Change> pubSubCommands) {
+        this.partnerships = partnerships;
+        this.timingWheel = timingWheel;
+        this.pubSubCommands = pubSubCommands;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        subscriber = pubSubCommands.subscribe(CHANNEL, this::apply);
+        timingWheel.schedule(this::sweep, ttl.dividedBy(2));
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        isStopped = true;
+        if (subscriber != null) subscriber.unsubscribe();
+    }
+
+    public Result<Boolean, Throwable> contains(UUID userId, UUID partnerId) {
+        var loaded = loadedOf(userId);
+        if (!loaded.success()) return Result.failure(loaded.throwable());
+
+        return Result.success(loaded.value().partners.contains(partnerId));
+    }
+
+    /**
+     * Looks the partner up in the sorted snapshot, so the id of the partner is not needed.
+     */
+    public Result<Boolean, Throwable> contains(Username username, Username partner) {
+        var snapshot = snapshotOf(username);
+        if (!snapshot.success()) return Result.failure(snapshot.throwable());
+
+        return Result.success(Arrays.binarySearch(snapshot.value().byUsername(), partner.username()) >= 0);
+    }
+
+    /**
+     * @return usernames of partners in alphabetical order
+     */
+    public Result<List<String>, Throwable> partners(Username username) {
+        var snapshot = snapshotOf(username);
+        if (!snapshot.success()) return Result.failure(snapshot.throwable());
+
+        return Result.success(Collections.unmodifiableList(Arrays.asList(snapshot.value().byUsername())));
+    }
+
+    /**
+     * Cursor of {@link PartnersOrder#USERNAME} is the last username of the previous page,
+     * cursor of {@link PartnersOrder#CREATED_AT} is {@code {epoch millis}:{username}} of it.
+     */
+    public Result<PartnersPage, Throwable> page(Username username, PartnersOrder order, String cursor, int limit) {
+        var result = snapshotOf(username);
+        if (!result.success()) return Result.failure(result.throwable());
+
+        Snapshot snapshot = result.value();
+        int count = snapshot.byUsername().length;
+        int from;
+        try {
+            from = Objects.isNull(cursor) ? 0 : switch (order) {
+                case USERNAME -> after(Arrays.binarySearch(snapshot.byUsername(), cursor));
+                case CREATED_AT -> after(Arrays.binarySearch(snapshot.byCreation(), Partner.parse(cursor), Partner.NEWEST_FIRST));
+            };
+        } catch (IllegalArgumentException e) {
+            return Result.failure(new IllegalDomainArgumentException("Invalid cursor."));
+        }
+
+        int to = Math.min(from + limit, count);
+        List<String> partners = new ArrayList<>(Math.max(to - from, 0));
+        String next = null;
+        if (order == PartnersOrder.USERNAME) {
+            for (int i = from; i < to; i++) partners.add(snapshot.byUsername()[i]);
+            if (to < count) next = snapshot.byUsername()[to - 1];
+        } else {
+            for (int i = from; i < to; i++) partners.add(snapshot.byCreation()[i].username());
+            if (to < count) next = snapshot.byCreation()[to - 1].cursor();
+        }
+
+        return Result.success(new PartnersPage(partners, count, next));
+    }
+
+    /**
+     * @return users with the most mutual partners first, up to {@link MutualPartners#TOP_K}
+     */
+    public Result<List<PartnerSuggestion>, Throwable> suggestions(Username username, int limit) {
+        var userId = idOf(username);
+        if (!userId.success()) return Result.failure(userId.throwable());
+
+        var result = mutualPartnersOf(userId.value());
+        if (!result.success()) return Result.failure(result.throwable());
+
+        PartnerSet partners = result.value().getFirst();
+        List<PartnerSuggestion> suggestions = new ArrayList<>();
+        for (MutualPartners.Candidate candidate : result.value().getSecond().top(limit,
+                id -> id.equals(userId.value()) || partners.contains(id))) {
+            if (candidate.username() != null)
+                suggestions.add(new PartnerSuggestion(candidate.username(), candidate.mutualPartners()));
+        }
+
+        return Result.success(suggestions);
+    }
+
+    public void added(UUID userId, Username username, UUID partnerId, Username partner, LocalDateTime createdAt) {
+        Change change = new Change(userId, username.username(), partnerId, partner.username(), true, epochMillis(createdAt));
+        apply(change);
+        pubSubCommands.publish(CHANNEL, change);
+    }
+
+    public void removed(UUID userId, Username username, UUID partnerId, Username partner) {
+        Change change = new Change(userId, username.username(), partnerId, partner.username(), false, 0);
+        apply(change);
+        pubSubCommands.publish(CHANNEL, change);
+    }
+
+    /**
+     * Drops partners of a user who went offline, they are loaded again on the next lookup.
+     */
+    public void evict(Username username) {
+        UUID userId = ids.remove(username);
+        if (userId == null) return;
+
+        synchronized (topologyLock) {
+            evict(userId, adjacency.get(userId));
+        }
+    }
+
+    /**
+     * Idempotent, so the change published by this node is applied again without harm.
+     * Users whose partners are not loaded are skipped: the change is in the log for a load that is running,
+     * and later loads read it from Postgres.
+     */
+    private void apply(Change change) {
+        synchronized (topologyLock) {
+            recentChanges[(int) (changes % RECENT_CHANGES)] = change;
+            changes++;
+            applyLoaded(change);
+        }
+    }
+
+    /**
+     * Applies the change to loaded partners and mutual partner counts, must be called under the topology lock.
+     */
+    private void applyLoaded(Change change) {
+        Loaded user = adjacency.get(change.userId());
+        Loaded partner = adjacency.get(change.partnerId());
+        boolean isUserChanged = user != null && update(user.partners, change, change.partnerId(), change.partner());
+        boolean isPartnerChanged = partner != null && update(partner.partners, change, change.userId(), change.username());
+
+        int delta = change.isAdded() ? 1 : -1;
+        shift(change.userId(), change.partnerId(), change.partner(), isUserChanged, isPartnerChanged, delta);
+        shift(change.partnerId(), change.userId(), change.username(), isPartnerChanged, isUserChanged, delta);
+        if (user != null) user.invalidateSuggestions();
+        if (partner != null) partner.invalidateSuggestions();
+    }
+
+    /**
+     * @return true if the partner set was changed, false if it already had the change, e.g. was loaded after it
+     */
+    private static boolean update(PartnerSet partners, Change change, UUID partnerId, String partner) {
+        if (change.isAdded()) return partners.add(partnerId, partner, change.createdAt());
+        return partners.remove(partnerId);
+    }
+
+    private Result<Loaded, Throwable> loadedOf(UUID userId) {
+        long now = clock.getAsLong();
+        Loaded loaded = adjacency.get(userId);
+        if (loaded != null && !loaded.isExpired(now, ttl.toNanos())) {
+            loaded.accessedAt = now;
+            return Result.success(loaded);
+        }
+
+        var result = load(List.of(userId));
+        if (!result.success()) return Result.failure(result.throwable());
+
+        return Result.success(result.value().get(userId));
+    }
+
+    private Result<Map<UUID, Loaded>, Throwable> load(List<UUID> userIds) {
+        Map<UUID, Loaded> loaded = new HashMap<>();
+        for (int from = 0; from < userIds.size(); from += LOAD_BATCH_SIZE) {
+            var result = loadBatch(userIds.subList(from, Math.min(from + LOAD_BATCH_SIZE, userIds.size())));
+            if (!result.success()) return Result.failure(result.throwable());
+
+            loaded.putAll(result.value());
+        }
+
+        return Result.success(loaded);
+    }
+
+    /**
+     * Loads partners of the users by one query and replays the changes applied since the query started on its result.
+     * If more changes than the log holds were applied meanwhile, the query is repeated.
+     */
+    private Result<Map<UUID, Loaded>, Throwable> loadBatch(List<UUID> userIds) {
+        for (int attempt = 1; ; attempt++) {
+            long from = changes;
+            var result = partnerships.of(userIds);
+            if (!result.success()) {
+                Log.errorf("Can`t load partners of %d users: %s", userIds.size(), result.throwable());
+                return Result.failure(result.throwable());
+            }
+
+            Map<UUID, Fetched> fetched = new HashMap<>();
+            for (UUID userId : userIds) fetched.put(userId, new Fetched());
+            for (Change partnership : result.value()) add(fetched, partnership);
+
+            synchronized (topologyLock) {
+                boolean isLogged = changes - from <= RECENT_CHANGES;
+                if (!isLogged && attempt < MAX_LOAD_ATTEMPTS) continue;
+                if (!isLogged) Log.warnf("Partners of %d users may miss changes until they expire.", userIds.size());
+
+                for (long i = Math.max(from, changes - RECENT_CHANGES); i < changes; i++) {
+                    add(fetched, recentChanges[(int) (i % RECENT_CHANGES)]);
+                }
+
+                long now = clock.getAsLong();
+                Map<UUID, Loaded> installed = new HashMap<>();
+                fetched.forEach((userId, partners) -> installed.put(userId, install(userId, partners, now)));
+                return Result.success(installed);
+            }
+        }
+    }
+
+    private static void add(Map<UUID, Fetched> fetched, Change change) {
+        Fetched ofUser = fetched.get(change.userId());
+        if (ofUser != null) {
+            ofUser.username = change.username();
+            update(ofUser.partners, change, change.partnerId(), change.partner());
+        }
+
+        Fetched ofPartner = fetched.get(change.partnerId());
+        if (ofPartner != null) {
+            ofPartner.username = change.partner();
+            update(ofPartner.partners, change, change.userId(), change.username());
+        }
+    }
+
+    /**
+     * Must be called under the topology lock. Expired partners are not replaced but brought to the loaded state
+     * by the changes they missed, so mutual partner counts built from them stay valid.
+     * Fresh partners installed by another thread in the meantime are kept.
+     */
+    private Loaded install(UUID userId, Fetched fetched, long now) {
+        Loaded current = adjacency.get(userId);
+        if (current == null) {
+            Loaded loaded = new Loaded(fetched.partners, now);
+            adjacency.put(userId, loaded);
+            return loaded;
+        }
+        if (!current.isExpired(now, ttl.toNanos())) return current;
+
+        for (PartnerSet.Member partner : fetched.partners.members()) {
+            if (!current.partners.contains(partner.id()))
+                applyLoaded(new Change(userId, fetched.username, partner.id(), partner.username(), true, partner.sinceMillis()));
+        }
+        for (PartnerSet.Member partner : current.partners.members()) {
+            if (!fetched.partners.contains(partner.id()))
+                applyLoaded(new Change(userId, fetched.username, partner.id(), partner.username(), false, 0));
+        }
+
+        current.loadedAt = now;
+        current.accessedAt = now;
+        return current;
+    }
+
+    /**
+     * Must be called under the topology lock.
+     */
+    private void evict(UUID userId, Loaded expected) {
+        if (expected != null && adjacency.remove(userId, expected)) dropCountsOf(expected.partners);
+    }
+
+    /**
+     * Drops mutual partner counts built from the partners, they are built again on the next request of suggestions.
+     */
+    private void dropCountsOf(PartnerSet partners) {
+        for (UUID partnerId : partners.toArray()) {
+            Loaded loaded = adjacency.get(partnerId);
+            if (loaded != null) loaded.mutualPartners = null;
+        }
+    }
+
+    /**
+     * Evicts idle partners and the least recently used ones above the limit of users, reloads the expired rest.
+     * Partners of partners of an active user with mutual partner counts are in use as well.
+     */
+    private void sweep() {
+        if (isStopped) return;
+
+        try {
+            long now = clock.getAsLong();
+            long ttlNanos = ttl.toNanos();
+            Set<UUID> inUse = new HashSet<>();
+            adjacency.forEach((userId, loaded) -> {
+                if (now - loaded.accessedAt >= ttlNanos) return;
+
+                inUse.add(userId);
+                if (loaded.mutualPartners != null) inUse.addAll(Arrays.asList(loaded.partners.toArray()));
+            });
+
+            Map<UUID, Loaded> evicted = new HashMap<>();
+            adjacency.forEach((userId, loaded) -> {
+                if (!inUse.contains(userId)) evicted.put(userId, loaded);
+            });
+
+            int excess = adjacency.size() - evicted.size() - maxUsers;
+            if (excess > 0) {
+                adjacency.entrySet().stream()
+                        .filter(entry -> !evicted.containsKey(entry.getKey()))
+                        .sorted(Comparator.comparingLong(entry -> entry.getValue().accessedAt))
+                        .limit(excess)
+                        .forEach(entry -> evicted.put(entry.getKey(), entry.getValue()));
+            }
+
+            synchronized (topologyLock) {
+                evicted.forEach(this::evict);
+            }
+            ids.values().removeIf(userId -> !adjacency.containsKey(userId));
+
+            List<UUID> expired = new ArrayList<>();
+            adjacency.forEach((userId, loaded) -> {
+                if (loaded.isExpired(now, ttlNanos)) expired.add(userId);
+            });
+            if (!expired.isEmpty()) load(expired);
+        } catch (Exception e) {
+            Log.errorf("Can`t sweep partnership graph: %s", e.getMessage());
+        }
+
+        timingWheel.schedule(this::sweep, ttl.dividedBy(2));
+    }
+
+    /**
+     * Moves mutual partner counts through {@code via}: each partner of it shares it with {@code other}.
+     * Counts of partners of {@code via} are moved only if the partner set of {@code via} was changed,
+     * counts of {@code other} only if its own partner set was changed, because a set that was loaded
+     * with the change already in it was counted with it as well.
+     * <p>
+     * Partners are copied before the counts are moved, so the locks of a partner set and of counts are never nested.
+     */
+    private void shift(UUID via, UUID other, String otherUsername, boolean isViaChanged, boolean isOtherChanged, int delta) {
+        Loaded ofVia = adjacency.get(via);
+        Loaded ofOther = isOtherChanged ? adjacency.get(other) : null;
+        MutualPartners otherCounts = ofOther == null ? null : ofOther.mutualPartners;
+        if (ofVia == null) {
+            if (otherCounts != null) ofOther.mutualPartners = null;
+            return;
+        }
+
+        for (PartnerSet.Member partner : ofVia.partners.members()) {
+            if (partner.id().equals(other)) continue;
+
+            if (isViaChanged) {
+                Loaded ofPartner = adjacency.get(partner.id());
+                MutualPartners partnerCounts = ofPartner == null ? null : ofPartner.mutualPartners;
+                if (partnerCounts != null) partnerCounts.change(other, otherUsername, delta);
+            }
+            if (otherCounts != null) otherCounts.change(partner.id(), partner.username(), delta);
+        }
+    }
+
+    /**
+     * Partners which are not loaded yet are loaded by one query before the lock is taken, so the counts
+     * are built from memory and partnership changes are not delayed by Postgres.
+     */
+    Result<Pair<PartnerSet, MutualPartners>, Throwable> mutualPartnersOf(UUID userId) {
+        for (int attempt = 0; attempt < MAX_LOAD_ATTEMPTS; attempt++) {
+            var loaded = loadedOf(userId);
+            if (!loaded.success()) return Result.failure(loaded.throwable());
+
+            MutualPartners counts = loaded.value().mutualPartners;
+            if (counts != null) return Result.success(Pair.of(loaded.value().partners, counts));
+
+            List<UUID> missing = new ArrayList<>();
+            for (UUID partnerId : loaded.value().partners.toArray()) {
+                if (!adjacency.containsKey(partnerId)) missing.add(partnerId);
+            }
+            if (!missing.isEmpty()) {
+                var result = load(missing);
+                if (!result.success()) return Result.failure(result.throwable());
+            }
+
+            synchronized (topologyLock) {
+                Loaded current = adjacency.get(userId);
+                if (current == null) continue;
+                if (current.mutualPartners != null) return Result.success(Pair.of(current.partners, current.mutualPartners));
+
+                counts = count(userId, current.partners);
+                if (counts == null) continue;
+
+                current.mutualPartners = counts;
+                return Result.success(Pair.of(current.partners, counts));
+            }
+        }
+
+        return Result.failure(new IllegalStateException("Partners of %s were evicted while mutual partners were counted.".formatted(userId)));
+    }
+
+    /**
+     * @return null if partners of some partner are not loaded
+     */
+    private MutualPartners count(UUID userId, PartnerSet partners) {
+        MutualPartners counts = new MutualPartners();
+        for (UUID partnerId : partners.toArray()) {
+            Loaded ofPartner = adjacency.get(partnerId);
+            if (ofPartner == null) return null;
+
+            for (PartnerSet.Member candidate : ofPartner.partners.members()) {
+                if (!candidate.id().equals(userId)) counts.change(candidate.id(), candidate.username(), 1);
+            }
+        }
+
+        return counts;
+    }
+
+    private Result<UUID, Throwable> idOf(Username username) {
+        UUID userId = ids.get(username);
+        if (userId != null) return Result.success(userId);
+
+        var result = partnerships.idOf(username);
+        if (!result.success()) return Result.failure(result.throwable());
+
+        ids.put(username, result.value());
+        return result;
+    }
+
+    private Result<Snapshot, Throwable> snapshotOf(Username username) {
+        var userId = idOf(username);
+        if (!userId.success()) return Result.failure(userId.throwable());
+
+        var result = loadedOf(userId.value());
+        if (!result.success()) return Result.failure(result.throwable());
+
+        Loaded loaded = result.value();
+        PartnerSet partners = loaded.partners;
+        Snapshot snapshot = loaded.snapshot;
+        if (snapshot != null && snapshot.version() == partners.version()) return Result.success(snapshot);
+
+        synchronized (partners) {
+            List<Partner> entries = new ArrayList<>(partners.size());
+            partners.forEach((partnerId, partner, since) -> {
+                if (partner != null) entries.add(new Partner(partner, since));
+            });
+
+            Partner[] byCreation = entries.toArray(Partner[]::new);
+            Arrays.sort(byCreation, Partner.NEWEST_FIRST);
+            String[] byUsername = entries.stream().map(Partner::username).sorted().toArray(String[]::new);
+
+            snapshot = new Snapshot(partners.version(), byUsername, byCreation);
+        }
+
+        loaded.snapshot = snapshot;
+        return Result.success(snapshot);
+    }
+
+    /**
+     * @return index of the first element after the cursor found by binary search
+     */
+    private static int after(int searchResult) {
+        return searchResult >= 0 ? searchResult + 1 : -searchResult - 1;
+    }
+
+    private static long epochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Partnerships as they are stored, the graph reads them only through this interface.
+     */
+    public interface Partnerships {
+
+        /**
+         * @return failure with {@link IllegalDomainArgumentException} if the user does not exist
+         */
+        Result<UUID, Throwable> idOf(Username username);
+
+        /**
+         * @return partnerships in which any of the users takes part, as added changes
+         */
+        Result<List<Change>, Throwable> of(List<UUID> userIds);
+    }
+
+    private record JdbcPartnerships(JetQuerious jet) implements Partnerships {
+
+        private static final String FULL_BATCH_SQL = partnershipsSQL(LOAD_BATCH_SIZE);
+
+        @Override
+        public Result<UUID, Throwable> idOf(Username username) {
+            var result = jet.readListOf(USER_ID, rs -> UUID.fromString(rs.getString("id")), username.username());
+            if (!result.success()) return Result.failure(result.throwable());
+            if (result.value().isEmpty()) return Result.failure(new IllegalDomainArgumentException("User does not exist."));
+
+            return Result.success(result.value().get(0));
+        }
+
+        @Override
+        public Result<List<Change>, Throwable> of(List<UUID> userIds) {
+            Object[] params = new Object[userIds.size() * 2];
+            for (int i = 0; i < userIds.size(); i++) {
+                params[i] = userIds.get(i).toString();
+                params[userIds.size() + i] = params[i];
+            }
+
+            String sql = userIds.size() == LOAD_BATCH_SIZE ? FULL_BATCH_SQL : partnershipsSQL(userIds.size());
+            return jet.readListOf(sql,
+                    rs -> new Change(
+                            UUID.fromString(rs.getString("user_id")),
+                            rs.getString("username"),
+                            UUID.fromString(rs.getString("partner_id")),
+                            rs.getString("partner"),
+                            true,
+                            epochMillis(rs.getObject("created_at", Timestamp.class).toLocalDateTime())),
+                    params);
+        }
+
+        /**
+         * Partnerships of the specified count of users, ids are passed twice: for both ends of a partnership.
+         */
+        static String partnershipsSQL(int users) {
+            String ids = String.join(", ", Collections.nCopies(users, "?"));
+            return select()
+                    .column("up.user_id").as("user_id")
+                    .column("u.username").as("username")
+                    .column("up.partner_id").as("partner_id")
+                    .column("p.username").as("partner")
+                    .column("up.created_at").as("created_at")
+                    .from("UserPartnership up")
+                    .join("UserAccount u", "u.id = up.user_id")
+                    .join("UserAccount p", "p.id = up.partner_id")
+                    .where("up.user_id IN (" + ids + ")")
+                    .or("up.partner_id IN (" + ids + ")")
+                    .build()
+                    .sql();
+        }
+    }
+
+    /**
+     * Partners of a user read by a load, before they are installed.
+     */
+    private static final class Fetched {
+        private final PartnerSet partners = new PartnerSet(0);
+        private String username;
+    }
+
+    /**
+     * Partners of a user with everything derived from them, so they are evicted together.
+     */
+    private static final class Loaded {
+        private final PartnerSet partners;
+        private volatile long loadedAt;
+        private volatile long accessedAt;
+        private volatile Snapshot snapshot;
+        private volatile MutualPartners mutualPartners;
+
+        private Loaded(PartnerSet partners, long now) {
+            this.partners = partners;
+            this.loadedAt = now;
+            this.accessedAt = now;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - loadedAt >= ttlNanos;
+        }
+
+        private void invalidateSuggestions() {
+            MutualPartners counts = mutualPartners;
+            if (counts != null) counts.invalidate();
+        }
+    }
+
+    /**
+     * Sorted partners of a user as of the specified version of the partner set.
+     */
+    private record Snapshot(int version, String[] byUsername, Partner[] byCreation) {}
+
+    private record Partner(String username, long since) {
+
+        static final Comparator<Partner> NEWEST_FIRST = Comparator.comparingLong(Partner::since).reversed()
+                .thenComparing(Partner::username);
+
+        static Partner parse(String cursor) {
+            int separator = cursor.indexOf(':');
+            if (separator < 0) throw new IllegalArgumentException("Invalid cursor.");
+            return new Partner(cursor.substring(separator + 1), Long.parseLong(cursor.substring(0, separator)));
+        }
+
+        String cursor() {
+            return since + ":" + username;
+        }
+    }
+
+    public record Change(UUID userId, String username, UUID partnerId, String partner, boolean isAdded, long createdAt) {}
+}
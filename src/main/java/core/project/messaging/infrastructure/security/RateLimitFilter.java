@@ -0,0 +1,47 @@
+package core.project.messaging.infrastructure.security;
+
+import core.project.messaging.infrastructure.ws.RateLimiter;
+import jakarta.annotation.Priority;
+import jakarta.ws.rs.Priorities;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+
+import java.security.Principal;
+import java.util.Objects;
+
+@Provider
+@RateLimited
+@Priority(Priorities.USER)
+public class RateLimitFilter implements ContainerRequestFilter {
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    private final RateLimiter rateLimiter;
+
+    RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        Principal principal = requestContext.getSecurityContext().getUserPrincipal();
+        if (Objects.isNull(principal)) return;
+
+        if (!rateLimiter.tryAcquire(principal.getName(), cost())) {
+            requestContext.abortWith(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                    .entity("You expose of request limits per time unit.")
+                    .build());
+        }
+    }
+
+    private int cost() {
+        RateLimited limit = resourceInfo.getResourceMethod().getAnnotation(RateLimited.class);
+        if (Objects.isNull(limit)) limit = resourceInfo.getResourceClass().getAnnotation(RateLimited.class);
+        return Objects.isNull(limit) ? 1 : limit.cost();
+    }
+}
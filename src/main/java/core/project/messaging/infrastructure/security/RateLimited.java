@@ -0,0 +1,22 @@
+package core.project.messaging.infrastructure.security;
+
+import jakarta.ws.rs.NameBinding;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Applies the per-user {@link core.project.messaging.infrastructure.ws.RateLimiter} to REST endpoints.
+ */
+@NameBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE, ElementType.METHOD})
+public @interface RateLimited {
+
+    /**
+     * Count of tokens spent by a single request.
+     */
+    int cost() default 1;
+}
@@ -0,0 +1,140 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.infrastructure.dal.cache.SessionStorage;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.quarkus.logging.Log;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Pings web socket sessions and reaps the ones which stay silent longer than {@code ws.heartbeat.idle-timeout}.
+ * <p>
+ * Every session owns exactly one timer on the shared {@link TimingWheel}, which is rescheduled on each check,
+ * so the cost of the heartbeat does not depend on the count of messages and is one wheel slot per session.
+ * Any inbound frame or pong counts as a sign of life.
+ */
+@ApplicationScoped
+public class Heartbeats {
+
+    private static final ByteBuffer PING_PAYLOAD = ByteBuffer.allocate(0);
+
+    private static final CloseReason IDLE_TIMEOUT = new CloseReason(CloseReason.CloseCodes.GOING_AWAY, "Idle timeout.");
+
+    @ConfigProperty(name = "ws.heartbeat.interval", defaultValue = "PT30S")
+    Duration interval;
+
+    @ConfigProperty(name = "ws.heartbeat.idle-timeout", defaultValue = "PT90S")
+    Duration idleTimeout;
+
+    private final TimingWheel timingWheel;
+
+    private final LongCounter reaped;
+
+    Heartbeats(TimingWheel timingWheel, OpenTelemetry openTelemetry) {
+        this.timingWheel = timingWheel;
+        this.reaped = openTelemetry.getMeter("messaging")
+                .counterBuilder("messaging.ws.sessions.reaped")
+                .setDescription("Sessions closed because of idle timeout.")
+                .build();
+    }
+
+    /**
+     * Starts heartbeat of the session.
+     *
+     * @param onExpired invoked after the idle session is closed, since container may never report close of a dead connection
+     */
+    public void attach(final Session session, final Runnable onExpired) {
+        Heartbeat heartbeat = new Heartbeat(session, onExpired);
+        session.getUserProperties().put(SessionStorage.SessionProperties.HEARTBEAT.key(), heartbeat);
+        heartbeat.schedule();
+    }
+
+    public static void touch(final Session session) {
+        of(session).ifPresent(Heartbeat::touch);
+    }
+
+    public void detach(final Session session) {
+        of(session).ifPresent(Heartbeat::cancel);
+    }
+
+    private static Optional<Heartbeat> of(final Session session) {
+        return Optional.ofNullable(session.getUserProperties().get(SessionStorage.SessionProperties.HEARTBEAT.key()))
+                .filter(Heartbeat.class::isInstance)
+                .map(Heartbeat.class::cast);
+    }
+
+    private final class Heartbeat {
+        private final Session session;
+        private final Runnable onExpired;
+        private volatile long lastSeen = System.nanoTime();
+        private volatile boolean isCancelled;
+        private volatile TimingWheel.Timeout timeout;
+
+        private Heartbeat(Session session, Runnable onExpired) {
+            this.session = session;
+            this.onExpired = onExpired;
+        }
+
+        private void touch() {
+            lastSeen = System.nanoTime();
+        }
+
+        private void schedule() {
+            timeout = timingWheel.schedule(this::check, interval);
+            if (isCancelled) timeout.cancel();
+        }
+
+        private void cancel() {
+            isCancelled = true;
+            TimingWheel.Timeout current = timeout;
+            if (current != null) current.cancel();
+        }
+
+        private void check() {
+            if (isCancelled) return;
+
+            if (System.nanoTime() - lastSeen >= idleTimeout.toNanos()) {
+                reap();
+                return;
+            }
+
+            ping();
+            schedule();
+        }
+
+        /**
+         * Goes through the outbound queue of the session, so the ping never overlaps a frame in flight.
+         */
+        private void ping() {
+            Optional<OutboundQueue> queue = OutboundQueues.of(session);
+            if (queue.isPresent()) {
+                queue.get().ping(PING_PAYLOAD);
+                return;
+            }
+
+            try {
+                session.getAsyncRemote().sendPing(PING_PAYLOAD.duplicate());
+            } catch (Exception e) {
+                Log.debugf("Ping of session %s failed: %s", session.getId(), e.getMessage());
+            }
+        }
+
+        private void reap() {
+            isCancelled = true;
+            reaped.add(1);
+            try {
+                session.close(IDLE_TIMEOUT);
+            } catch (Exception e) {
+                Log.debugf("Close of idle session %s failed: %s", session.getId(), e.getMessage());
+            }
+            onExpired.run();
+        }
+    }
+}
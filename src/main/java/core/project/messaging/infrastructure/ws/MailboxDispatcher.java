@@ -0,0 +1,74 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.infrastructure.dal.cache.SessionStorage;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.websocket.Session;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes web socket work of every session serially through its {@link SessionMailbox} on virtual threads,
+ * keeping the count of queued and running tasks of the node under {@code ws.dispatcher.max-in-flight}.
+ */
+@ApplicationScoped
+public class MailboxDispatcher {
+
+    @ConfigProperty(name = "ws.dispatcher.max-in-flight", defaultValue = "10000")
+    int maxInFlight;
+
+    @ConfigProperty(name = "ws.dispatcher.mailbox-capacity", defaultValue = "32")
+    int mailboxCapacity;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Attaches new mailbox to the session, must be called before any task of the session is submitted.
+     */
+    public SessionMailbox attach(final Session session) {
+        SessionMailbox mailbox = new SessionMailbox(mailboxCapacity, this);
+        session.getUserProperties().put(SessionStorage.SessionProperties.MAILBOX.key(), mailbox);
+        return mailbox;
+    }
+
+    public static Optional<SessionMailbox> of(final Session session) {
+        return Optional.ofNullable(session.getUserProperties().get(SessionStorage.SessionProperties.MAILBOX.key()))
+                .filter(SessionMailbox.class::isInstance)
+                .map(SessionMailbox.class::cast);
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= maxInFlight) return false;
+            if (inFlight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    void acquire() {
+        inFlight.incrementAndGet();
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    void execute(final Runnable drain) {
+        executor.execute(drain);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,37 @@
+package core.project.messaging.infrastructure.ws;
+
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import core.project.messaging.application.dto.messaging.Message;
+import jakarta.websocket.DecodeException;
+import jakarta.websocket.Decoder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes CBOR binary frames. Size of the frame is checked before anything is read from it.
+ */
+public class MessageBinaryDecoder implements Decoder.Binary<Message> {
+
+    public static final int MAX_LENGTH = 512;
+
+    private static final CBORMapper cborMapper = new CBORMapper();
+
+    @Override
+    public Message decode(ByteBuffer bytes) throws DecodeException {
+        if (bytes == null || bytes.remaining() > MAX_LENGTH) {
+            throw new DecodeException(bytes, "Invalid message: null or exceeds 512 bytes");
+        }
+
+        try {
+            return cborMapper.readValue(new ByteBufferBackedInputStream(bytes), Message.class);
+        } catch (Exception e) {
+            throw new DecodeException(bytes, "Unable to decode CBOR", e);
+        }
+    }
+
+    @Override
+    public boolean willDecode(ByteBuffer bytes) {
+        return bytes != null && bytes.remaining() <= MAX_LENGTH;
+    }
+}
@@ -0,0 +1,65 @@
+package core.project.messaging.infrastructure.ws;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.application.dto.messaging.SystemMessages;
+import jakarta.websocket.EncodeException;
+import jakarta.websocket.Encoder;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MessageBinaryEncoder implements Encoder.Binary<Message> {
+
+    private static final ObjectWriter writer = CBORMapper
+            .builder(CBORFactory.builder().recyclerPool(JsonRecyclerPools.sharedLockFreePool()).build())
+            .build()
+            .writerFor(Message.class);
+
+    private static final ObjectWriter batchWriter = writer.forType(Message[].class);
+
+    private static final Map<Message, byte[]> constantFrames = preEncode();
+
+    @Override
+    public ByteBuffer encode(Message message) throws EncodeException {
+        byte[] frame = constantFrames.get(message);
+        if (frame != null) return ByteBuffer.wrap(frame);
+
+        try {
+            return ByteBuffer.wrap(writer.writeValueAsBytes(message));
+        } catch (JsonProcessingException e) {
+            throw new EncodeException(message, "Unable to encode CBOR", e);
+        }
+    }
+
+    /**
+     * Encodes several messages as a single CBOR array frame.
+     */
+    public ByteBuffer encode(List<Message> messages) throws EncodeException {
+        try {
+            return ByteBuffer.wrap(batchWriter.writeValueAsBytes(messages.toArray(Message[]::new)));
+        } catch (JsonProcessingException e) {
+            throw new EncodeException(messages, "Unable to encode CBOR", e);
+        }
+    }
+
+    private static Map<Message, byte[]> preEncode() {
+        Map<Message, byte[]> frames = new IdentityHashMap<>();
+        for (Message message : SystemMessages.ALL) {
+            try {
+                frames.put(message, writer.writeValueAsBytes(message));
+            } catch (JsonProcessingException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        return Collections.unmodifiableMap(frames);
+    }
+}
@@ -7,7 +7,7 @@ import jakarta.websocket.Decoder;
 
 public class MessageDecoder implements Decoder.Text<Message> {
 
-    private static final int MAX_LENGTH = 512;
+    public static final int MAX_LENGTH = 512;
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
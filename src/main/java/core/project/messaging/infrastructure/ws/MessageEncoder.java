@@ -1,22 +1,68 @@
 package core.project.messaging.infrastructure.ws;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.util.JsonRecyclerPools;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.application.dto.messaging.SystemMessages;
 import jakarta.websocket.EncodeException;
 import jakarta.websocket.Encoder;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes messages with a shared writer. Buffers are taken from a lock-free pool instead of thread locals,
+ * which are useless on virtual threads, and constant {@link SystemMessages} are encoded only once.
+ */
 public class MessageEncoder implements Encoder.Text<Message> {
 
-    private final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectWriter writer = JsonMapper
+            .builder(JsonFactory.builder().recyclerPool(JsonRecyclerPools.sharedLockFreePool()).build())
+            .build()
+            .writerFor(Message.class);
+
+    private static final ObjectWriter batchWriter = writer.forType(Message[].class);
+
+    private static final Map<Message, String> constantFrames = preEncode();
 
     @Override
     public String encode(Message message) throws EncodeException {
+        String frame = constantFrames.get(message);
+        if (frame != null) return frame;
+
         try {
-            return mapper.writeValueAsString(message);
+            return writer.writeValueAsString(message);
         } catch (JsonProcessingException e) {
-            throw new EncodeException(message, "uhh", e);
+            throw new EncodeException(message, "Unable to encode JSON", e);
+        }
+    }
+
+    /**
+     * Encodes several messages as a single JSON array frame.
+     */
+    public String encode(List<Message> messages) throws EncodeException {
+        try {
+            return batchWriter.writeValueAsString(messages.toArray(Message[]::new));
+        } catch (JsonProcessingException e) {
+            throw new EncodeException(messages, "Unable to encode JSON", e);
         }
     }
-}
 
+    private static Map<Message, String> preEncode() {
+        Map<Message, String> frames = new IdentityHashMap<>();
+        for (Message message : SystemMessages.ALL) {
+            try {
+                frames.put(message, writer.writeValueAsString(message));
+            } catch (JsonProcessingException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        return Collections.unmodifiableMap(frames);
+    }
+}
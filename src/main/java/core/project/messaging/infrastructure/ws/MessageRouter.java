@@ -0,0 +1,245 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.domain.user.entities.User;
+import core.project.messaging.domain.user.value_objects.Username;
+import core.project.messaging.infrastructure.dal.cache.SessionDirectory;
+import core.project.messaging.infrastructure.dal.cache.SessionStorage;
+import io.quarkus.logging.Log;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.redis.datasource.pubsub.PubSubCommands;
+import io.quarkus.runtime.Startup;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.websocket.Session;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routes messages to users connected to any node of the cluster.
+ * <p>
+ * Local sessions are kept in {@link SessionStorage}, while {@link SessionDirectory} knows on which nodes every user is connected.
+ * A user may be connected from up to {@code ws.sessions.max-per-user} devices and every message is delivered to all of them,
+ * messages for devices on other nodes are forwarded through the Redis channels of the owning nodes.
+ * Delivered messages are stamped with the sequence number of the addressee stream by {@link ReplayBuffers}.
+ * <p>
+ * Remote nodes of an addressee are cached for {@code messaging.router.owners-ttl}, so messages to a user who is
+ * connected only to this node do not cost a directory round trip each. A session opened on another node
+ * starts to receive messages from this node after the cached entry expires.
+ * <p>
+ * The node id is {@code messaging.node.id} or the host name, so a restarted node cleans up its own stale entries.
+ * Entries of a node that does not come back expire with its liveness key, which is refreshed every third of {@code messaging.node.ttl}.
+ */
+@Startup
+@ApplicationScoped
+public class MessageRouter {
+
+    private static final String CHANNEL_FORMAT = "Messaging node {%s}";
+
+    @ConfigProperty(name = "messaging.node.id")
+    Optional<String> configuredNode;
+
+    @ConfigProperty(name = "messaging.node.ttl", defaultValue = "PT15S")
+    Duration nodeTtl;
+
+    @ConfigProperty(name = "ws.sessions.max-per-user", defaultValue = "5")
+    int maxSessionsPerUser;
+
+    @ConfigProperty(name = "messaging.router.owners-ttl", defaultValue = "PT1S")
+    Duration ownersTtl;
+
+    private volatile boolean isStopped;
+
+    private String node;
+
+    private PubSubCommands.RedisSubscriber subscriber;
+
+    private final SessionStorage sessionStorage;
+
+    private final SessionDirectory sessionDirectory;
+
+    private final ReplayBuffers replayBuffers;
+
+    private final TimingWheel timingWheel;
+
+    private final PubSubCommands<Envelope> pubSubCommands;
+
+    private final ConcurrentHashMap<Username, RemoteOwners> remoteOwners = new ConcurrentHashMap<>();
+
+    MessageRouter(SessionStorage sessionStorage,
+                  SessionDirectory sessionDirectory,
+                  ReplayBuffers replayBuffers,
+                  TimingWheel timingWheel,
+                  RedisDataSource redisDataSource) {
+        this.sessionStorage = sessionStorage;
+        this.sessionDirectory = sessionDirectory;
+        this.replayBuffers = replayBuffers;
+        this.timingWheel = timingWheel;
+        this.pubSubCommands = redisDataSource.pubsub(Envelope.class);
+    }
+
+    @PostConstruct
+    void subscribe() {
+        node = configuredNode.orElseGet(MessageRouter::hostName);
+        sessionDirectory.evict(node);
+        heartbeat();
+        subscriber = pubSubCommands.subscribe(String.format(CHANNEL_FORMAT, node), this::deliver);
+        Log.infof("Messaging node %s is subscribed for routed messages.", node);
+    }
+
+    @PreDestroy
+    void unsubscribe() {
+        isStopped = true;
+        if (subscriber != null) subscriber.unsubscribe();
+        sessionDirectory.evict(node);
+    }
+
+    public String node() {
+        return node;
+    }
+
+    /**
+     * Registers session of the user in the cluster.
+     *
+     * @return count of sessions of the user in the cluster including this one,
+     * 0 if user already has the maximum count of sessions
+     */
+    public int admit(Session session, User user) {
+        int sessions = sessionDirectory.register(user.username(), node, maxSessionsPerUser);
+        if (sessions == 0) return 0;
+        if (sessionStorage.add(session, user, maxSessionsPerUser)) return sessions;
+
+        sessionDirectory.unregister(user.username(), node);
+        return 0;
+    }
+
+    /**
+     * @return false if the session was not admitted, e.g. it was rejected because of the limit
+     */
+    public boolean release(Session session, Username username) {
+        if (!sessionStorage.remove(username, session)) return false;
+
+        sessionDirectory.unregister(username, node);
+        return true;
+    }
+
+    public boolean isOnline(Username username) {
+        return sessionStorage.contains(username) || !sessionDirectory.locate(username).isEmpty();
+    }
+
+    /**
+     * Sends message to all sessions of the user regardless of the nodes on which the user is connected.
+     * Messages for offline users are dropped.
+     */
+    public void send(Username addressee, Message message) {
+        deliverLocally(addressee, message);
+
+        for (String owner : remoteOwnersOf(addressee)) {
+            pubSubCommands.publish(String.format(CHANNEL_FORMAT, owner), new Envelope(List.of(addressee.username()), message));
+        }
+    }
+
+    /**
+     * Sends the same message to many users. Remote users are located in one directory round trip
+     * and every node receives a single envelope with all its addressees.
+     *
+     * @return addressees which are connected to any node, others did not receive the message
+     */
+    public Set<Username> broadcast(Collection<Username> addressees, Message message) {
+        Set<Username> reached = new HashSet<>();
+        for (Username addressee : addressees) {
+            if (deliverLocally(addressee, message)) reached.add(addressee);
+        }
+
+        Map<String, List<String>> byNode = new HashMap<>();
+        sessionDirectory.locateAll(addressees).forEach((addressee, owners) -> {
+            reached.add(addressee);
+            for (String owner : owners) {
+                if (!owner.equals(node)) byNode.computeIfAbsent(owner, k -> new ArrayList<>()).add(addressee.username());
+            }
+        });
+
+        byNode.forEach((owner, usernames) ->
+                pubSubCommands.publish(String.format(CHANNEL_FORMAT, owner), new Envelope(usernames, message)));
+        return reached;
+    }
+
+    private void heartbeat() {
+        if (isStopped) return;
+
+        try {
+            sessionDirectory.heartbeat(node, nodeTtl);
+        } catch (Exception e) {
+            Log.errorf("Can`t refresh liveness of messaging node %s: %s", node, e.getMessage());
+        }
+
+        long now = System.nanoTime();
+        remoteOwners.values().removeIf(owners -> owners.isExpired(now));
+        timingWheel.schedule(this::heartbeat, nodeTtl.dividedBy(3));
+    }
+
+    /**
+     * @return nodes other than this one which hold sessions of the user, as of at most {@code messaging.router.owners-ttl} ago
+     */
+    private Set<String> remoteOwnersOf(Username username) {
+        long now = System.nanoTime();
+        RemoteOwners cached = remoteOwners.get(username);
+        if (cached != null && !cached.isExpired(now)) return cached.nodes();
+
+        Set<String> nodes = new HashSet<>(sessionDirectory.locate(username));
+        nodes.remove(node);
+        RemoteOwners owners = new RemoteOwners(Set.copyOf(nodes), now + ownersTtl.toNanos());
+        remoteOwners.put(username, owners);
+        return owners.nodes();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Host name is unknown, messaging.node.id must be configured.", e);
+        }
+    }
+
+    private void deliver(Envelope envelope) {
+        for (String addressee : envelope.addressees()) {
+            if (!Username.validate(addressee)) {
+                Log.errorf("Routed message with invalid addressee: %s", addressee);
+                continue;
+            }
+
+            deliverLocally(new Username(addressee), envelope.message());
+        }
+    }
+
+    /**
+     * @return false if the user has no session on this node which is attached to the stream of the user
+     */
+    private boolean deliverLocally(Username addressee, Message message) {
+        if (!sessionStorage.contains(addressee)) return false;
+
+        return replayBuffers.deliver(addressee, message);
+    }
+
+    public record Envelope(List<String> addressees, Message message) {}
+
+    private record RemoteOwners(Set<String> nodes, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.application.dto.messaging.Message;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.quarkus.logging.Log;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.SendResult;
+import jakarta.websocket.Session;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded outbound queue of a single web socket session.
+ * <p>
+ * Only one frame per session is in flight at any time: the next frame is written from the completion
+ * callback of the previous one, so a slow client can never pile up more than {@code capacity} frames.
+ * <p>
+ * Frames are split into two {@link Lane}s sharing the capacity. Control frames are always written first,
+ * and on overflow bulk frames are shed before any control frame, so errors and close reasons
+ * are not delayed by notification storms.
+ * <p>
+ * Pings are written through the queue as well, so they never overlap a frame in flight: a ping requested
+ * while a frame is being written is sent right after it completes, before any pending frame.
+ * <p>
+ * If the session has opted in to batching, frames which piled up while the previous one was in flight
+ * are written together as a single array frame of up to {@code maxBatch} messages.
+ */
+public class OutboundQueue {
+
+    private static final MessageEncoder textEncoder = new MessageEncoder();
+
+    private static final MessageBinaryEncoder binaryEncoder = new MessageBinaryEncoder();
+
+    private final Session session;
+
+    private final WireFormat format;
+
+    private final int capacity;
+
+    private final int maxBatch;
+
+    private final OverflowPolicy policy;
+
+    private final Metrics metrics;
+
+    private final ArrayDeque<Message> control;
+
+    private final ArrayDeque<Message> bulk;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private boolean isWriting;
+
+    private ByteBuffer pendingPing;
+
+    private boolean isClosed;
+
+    private CloseReason closeReason;
+
+    OutboundQueue(Session session, WireFormat format, int capacity, int maxBatch, OverflowPolicy policy, Metrics metrics) {
+        this.session = session;
+        this.format = format;
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.policy = policy;
+        this.metrics = metrics;
+        this.control = new ArrayDeque<>(4);
+        this.bulk = new ArrayDeque<>(Math.min(capacity, 16));
+    }
+
+    public void offer(final Message message) {
+        Objects.requireNonNull(message);
+
+        Lane lane = Lane.of(message);
+        ArrayDeque<Message> frames = lane == Lane.CONTROL ? control : bulk;
+
+        Message next;
+        lock.lock();
+        try {
+            if (isClosed || closeReason != null) return;
+            if (size() >= capacity) {
+                if (lane == Lane.BULK && bulk.isEmpty()) {
+                    metrics.dropped().add(1);
+                    return;
+                }
+                if (!resolveOverflow(message, lane)) {
+                    evict();
+                    return;
+                }
+            }
+
+            frames.offer(message);
+            metrics.depth().incrementAndGet();
+            if (isWriting) return;
+
+            isWriting = true;
+            next = poll();
+        } finally {
+            lock.unlock();
+        }
+
+        write(next);
+    }
+
+    /**
+     * Sends ping once the frame in flight, if any, is written. Pings requested meanwhile collapse into one.
+     */
+    public void ping(final ByteBuffer payload) {
+        Objects.requireNonNull(payload);
+
+        lock.lock();
+        try {
+            if (isClosed || closeReason != null) return;
+            if (isWriting) {
+                pendingPing = payload;
+                return;
+            }
+
+            isWriting = true;
+        } finally {
+            lock.unlock();
+        }
+
+        writePing(payload);
+    }
+
+    public int depth() {
+        lock.lock();
+        try {
+            return size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the session after pending control frames are written, pending bulk frames are discarded.
+     */
+    public void close(final CloseReason reason) {
+        Objects.requireNonNull(reason);
+
+        lock.lock();
+        try {
+            if (isClosed || closeReason != null) return;
+
+            closeReason = reason;
+            metrics.depth().addAndGet(-bulk.size());
+            metrics.dropped().add(bulk.size());
+            bulk.clear();
+            if (isWriting) return;
+        } finally {
+            lock.unlock();
+        }
+
+        closeSession(reason);
+    }
+
+    /**
+     * Discards all pending frames, must be called when session is closed.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            isClosed = true;
+            metrics.depth().addAndGet(-size());
+            pendingPing = null;
+            control.clear();
+            bulk.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ping is written synchronously, the next frame is written as soon as it returns.
+     */
+    private void writePing(final ByteBuffer payload) {
+        try {
+            session.getAsyncRemote().sendPing(payload.duplicate());
+        } catch (Exception e) {
+            Log.debugf("Ping of session %s failed: %s", session.getId(), e.getMessage());
+        }
+
+        writeNext();
+    }
+
+    private void write(final Message message) {
+        try {
+            if (format == WireFormat.CBOR) session.getAsyncRemote().sendBinary(binaryEncoder.encode(message), this::onComplete);
+            else session.getAsyncRemote().sendText(textEncoder.encode(message), this::onComplete);
+        } catch (Exception e) {
+            Log.infof("Can`t write frame to session %s: %s", session.getId(), e);
+            close();
+        }
+    }
+
+    private void write(final List<Message> batch) {
+        try {
+            if (format == WireFormat.CBOR) session.getAsyncRemote().sendBinary(binaryEncoder.encode(batch), this::onComplete);
+            else session.getAsyncRemote().sendText(textEncoder.encode(batch), this::onComplete);
+        } catch (Exception e) {
+            Log.infof("Can`t write frame to session %s: %s", session.getId(), e);
+            close();
+        }
+    }
+
+    private void onComplete(final SendResult result) {
+        if (!result.isOK()) {
+            Log.infof("Can`t write frame to session %s: %s", session.getId(), result.getException());
+            close();
+            return;
+        }
+
+        writeNext();
+    }
+
+    private void writeNext() {
+        ByteBuffer ping;
+        Message next = null;
+        List<Message> batch = null;
+        CloseReason reason;
+        lock.lock();
+        try {
+            ping = pendingPing;
+            pendingPing = null;
+            if (ping == null && maxBatch > 1 && size() > 1) batch = pollBatch();
+            else if (ping == null) next = poll();
+
+            if (ping == null && next == null && batch == null) {
+                isWriting = false;
+                reason = isClosed ? null : closeReason;
+                if (reason == null) return;
+            } else {
+                reason = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (ping != null) writePing(ping);
+        else if (reason != null) closeSession(reason);
+        else if (batch != null) write(batch);
+        else write(next);
+    }
+
+    private int size() {
+        return control.size() + bulk.size();
+    }
+
+    private Message poll() {
+        Message message = control.poll();
+        if (message == null) message = bulk.poll();
+        if (message != null) metrics.depth().decrementAndGet();
+        return message;
+    }
+
+    private List<Message> pollBatch() {
+        int size = Math.min(size(), maxBatch);
+        List<Message> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) batch.add(control.isEmpty() ? bulk.poll() : control.poll());
+
+        metrics.depth().addAndGet(-size);
+        metrics.batched().add(size);
+        return batch;
+    }
+
+    /**
+     * Frees a place for the new frame according to the overflow policy. Bulk frames are shed first,
+     * control frames are dropped only when the queue holds nothing else.
+     *
+     * @return false if session must be evicted as a slow consumer
+     */
+    private boolean resolveOverflow(final Message message, final Lane lane) {
+        ArrayDeque<Message> victims = bulk.isEmpty() ? control : bulk;
+        switch (policy) {
+            case DROP_OLDEST -> victims.poll();
+            case COALESCE -> {
+                if (!removeSameKind(victims, message)) victims.poll();
+            }
+            case CLOSE -> {
+                if (lane == Lane.BULK || bulk.isEmpty()) return false;
+                bulk.poll();
+            }
+        }
+
+        metrics.depth().decrementAndGet();
+        metrics.dropped().add(1);
+        return true;
+    }
+
+    private static boolean removeSameKind(final ArrayDeque<Message> frames, final Message message) {
+        Iterator<Message> iterator = frames.iterator();
+        while (iterator.hasNext()) {
+            Message pending = iterator.next();
+            if (pending.type() == message.type() && Objects.equals(pending.partner(), message.partner())) {
+                iterator.remove();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void evict() {
+        isClosed = true;
+        metrics.depth().addAndGet(-size());
+        metrics.dropped().add(size() + 1L);
+        metrics.evicted().add(1);
+        control.clear();
+        bulk.clear();
+
+        closeSession(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER,
+                Message.error("Slow consumer. Outbound queue is full.").asJSON()));
+    }
+
+    private void closeSession(final CloseReason reason) {
+        Thread.startVirtualThread(() -> {
+            try {
+                session.close(reason);
+            } catch (Exception e) {
+                Log.error(e.getMessage(), e);
+            }
+        });
+    }
+
+    public enum OverflowPolicy {
+        /** Drops the oldest pending frame. */
+        DROP_OLDEST,
+        /** Replaces pending frame of the same type and partner, or drops the oldest one if there is no such. */
+        COALESCE,
+        /** Closes the session as a slow consumer, unless a control frame may take place of a bulk one. */
+        CLOSE
+    }
+
+    public enum Lane {
+        /** Errors, results of requests and connection state, always written first. */
+        CONTROL,
+        /** Notifications, shed first under pressure. */
+        BULK;
+
+        public static Lane of(final Message message) {
+            return switch (message.type()) {
+                case ERROR, INFO, RESUME, RECONNECT, RESULT -> CONTROL;
+                default -> BULK;
+            };
+        }
+    }
+
+    record Metrics(AtomicLong depth, LongCounter dropped, LongCounter evicted, LongCounter batched) {}
+}
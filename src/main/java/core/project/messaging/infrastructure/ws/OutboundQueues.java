@@ -0,0 +1,80 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.infrastructure.dal.cache.SessionStorage;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.metrics.Meter;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.websocket.Session;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates outbound queues of web socket sessions and exposes their total depth as a metric.
+ */
+@ApplicationScoped
+public class OutboundQueues {
+
+    @ConfigProperty(name = "ws.outbound.queue.capacity", defaultValue = "64")
+    int capacity;
+
+    @ConfigProperty(name = "ws.outbound.queue.overflow-policy", defaultValue = "CLOSE")
+    OutboundQueue.OverflowPolicy policy;
+
+    @ConfigProperty(name = "ws.outbound.batch.max-frames", defaultValue = "16")
+    int maxBatch;
+
+    private final OutboundQueue.Metrics metrics;
+
+    OutboundQueues(OpenTelemetry openTelemetry) {
+        Meter meter = openTelemetry.getMeter("messaging");
+        AtomicLong depth = new AtomicLong();
+
+        meter.gaugeBuilder("messaging.ws.outbound.queue.depth")
+                .setDescription("Total count of frames waiting in outbound queues of web socket sessions.")
+                .ofLongs()
+                .buildWithCallback(measurement -> measurement.record(depth.get()));
+
+        this.metrics = new OutboundQueue.Metrics(
+                depth,
+                meter.counterBuilder("messaging.ws.outbound.frames.dropped")
+                        .setDescription("Frames dropped because of outbound queue overflow.")
+                        .build(),
+                meter.counterBuilder("messaging.ws.outbound.sessions.evicted")
+                        .setDescription("Sessions closed as slow consumers.")
+                        .build(),
+                meter.counterBuilder("messaging.ws.outbound.frames.batched")
+                        .setDescription("Messages written as part of array frames.")
+                        .build()
+        );
+    }
+
+    /**
+     * Attaches new outbound queue to the session, must be called before any message is sent to it.
+     * Batching is enabled only for clients which connect with {@code batch=true}, because they must accept array frames.
+     */
+    public OutboundQueue attach(final Session session) {
+        int sessionBatch = isBatching(session) ? maxBatch : 1;
+        OutboundQueue queue = new OutboundQueue(session, WireFormat.of(session), capacity, sessionBatch, policy, metrics);
+        session.getUserProperties().put(SessionStorage.SessionProperties.OUTBOUND_QUEUE.key(), queue);
+        return queue;
+    }
+
+    public void detach(final Session session) {
+        of(session).ifPresent(OutboundQueue::close);
+    }
+
+    private static boolean isBatching(final Session session) {
+        List<String> batch = session.getRequestParameterMap().get("batch");
+        return Objects.nonNull(batch) && !batch.isEmpty() && Boolean.parseBoolean(batch.getFirst());
+    }
+
+    public static Optional<OutboundQueue> of(final Session session) {
+        return Optional.ofNullable(session.getUserProperties().get(SessionStorage.SessionProperties.OUTBOUND_QUEUE.key()))
+                .filter(OutboundQueue.class::isInstance)
+                .map(OutboundQueue.class::cast);
+    }
+}
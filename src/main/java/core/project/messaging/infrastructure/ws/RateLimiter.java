@@ -1,55 +1,238 @@
 package core.project.messaging.infrastructure.ws;
 
+import core.project.messaging.application.dto.messaging.MessageType;
 import core.project.messaging.domain.user.entities.User;
+import core.project.messaging.infrastructure.dal.cache.RateLimitLeases;
+import io.quarkus.logging.Log;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
-import java.util.UUID;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
 
+/**
+ * Per-user rate limiter shared by web socket messages and REST endpoints.
+ * <p>
+ * Every user has a local token bucket limiting the node rate. When {@code ws.rate.limit.distributed} is enabled,
+ * tokens are additionally leased in batches from the global budget of the user, so reconnecting
+ * to another node does not reset the budget, while Redis is touched only once per lease.
+ * <p>
+ * The global budget is {@code ws.rate.limit} per second over a window of {@code ws.rate.limit.lease-window},
+ * and a lease is {@code ws.rate.limit.lease-share} of it. A lease is spent during the whole window,
+ * so a user at the full rate costs a few Redis round trips per window instead of one per second.
+ * <p>
+ * When a lease fails, e.g. Redis is down, leasing is skipped for {@code ws.rate.limit.lease-backoff} and only the local
+ * limit applies. After the backoff a single request probes Redis again. The failure and the recovery are logged once.
+ */
 @ApplicationScoped
 public class RateLimiter {
 
     @ConfigProperty(name = "ws.rate.limit")
     int rateLimit;
 
-    private final ConcurrentHashMap<UUID, SWRateLimiter> limiters = new ConcurrentHashMap<>();
+    @ConfigProperty(name = "ws.rate.limit.idle-timeout", defaultValue = "PT5M")
+    Duration idleTimeout;
+
+    @ConfigProperty(name = "ws.rate.limit.distributed", defaultValue = "true")
+    boolean isDistributed;
+
+    @ConfigProperty(name = "ws.rate.limit.lease-window", defaultValue = "PT10S")
+    Duration leaseWindow;
+
+    @ConfigProperty(name = "ws.rate.limit.lease-share", defaultValue = "0.25")
+    double leaseShare;
+
+    @ConfigProperty(name = "ws.rate.limit.lease-backoff", defaultValue = "PT5S")
+    Duration leaseBackoff;
+
+    LongSupplier clock = System::nanoTime;
+
+    LongSupplier wallClock = System::currentTimeMillis;
+
+    private static final Map<MessageType, Integer> COSTS = new EnumMap<>(Map.of(
+            MessageType.PARTNERSHIP_REQUEST, 5,
+            MessageType.PARTNERSHIP_DECLINE, 2
+    ));
+
+    private final RateLimitLeases leases;
+
+    private final AtomicLong nextSweep = new AtomicLong(Long.MIN_VALUE);
+
+    private final AtomicBoolean isLeasingDown = new AtomicBoolean();
+
+    private final AtomicLong nextLeaseProbe = new AtomicLong();
+
+    private final ConcurrentHashMap<String, TokenBucket> limiters = new ConcurrentHashMap<>();
+
+    RateLimiter(RateLimitLeases leases) {
+        this.leases = leases;
+    }
 
     public boolean tryAcquire(User user) {
-        UUID key = user.id();
-        SWRateLimiter limiter = limiters.computeIfAbsent(key, k -> new SWRateLimiter(rateLimit));
-        return limiter.tryAcquire();
+        return tryAcquire(user.username().username(), 1);
     }
 
-    static class SWRateLimiter {
-        final int threshold;
-        final long windowUnit = 1000L;
-        final ConcurrentLinkedQueue<Long> log = new ConcurrentLinkedQueue<>();
+    public boolean tryAcquire(User user, MessageType type) {
+        return tryAcquire(user.username().username(), cost(type));
+    }
+
+    /**
+     * Tries to spend the specified count of tokens of the subject (username).
+     *
+     * @return true if the request is within the rate limit; false otherwise.
+     */
+    public boolean tryAcquire(String subject, int cost) {
+        long now = clock.getAsLong();
+        sweep(now);
+
+        int tokens = Math.min(cost, rateLimit);
+        TokenBucket limiter = limiters.computeIfAbsent(subject, k -> new TokenBucket(rateLimit, now));
+        if (!limiter.tryAcquire(tokens, now)) return false;
+        if (!isDistributed) return true;
+
+        long window = wallClock.getAsLong() / leaseWindow.toMillis();
+        if (limiter.trySpendLease(tokens, window) || lease(subject, limiter, tokens, window, now)) return true;
+
+        limiter.refund(tokens);
+        return false;
+    }
+
+    public static int cost(MessageType type) {
+        return COSTS.getOrDefault(type, 1);
+    }
+
+    int size() {
+        return limiters.size();
+    }
+
+    /**
+     * @return count of tokens the user may spend across all nodes within the lease window
+     */
+    long budget() {
+        return Math.max(rateLimit * leaseWindow.toSeconds(), rateLimit);
+    }
+
+    /**
+     * @return true if the request is accepted by the global budget or leasing is down
+     */
+    private boolean lease(String subject, TokenBucket limiter, int tokens, long window, long now) {
+        if (isLeasingDown.get()) {
+            long probe = nextLeaseProbe.get();
+            if (now - probe < 0 || !nextLeaseProbe.compareAndSet(probe, now + leaseBackoff.toNanos())) return true;
+        }
+
+        long budget = budget();
+        int leaseSize = (int) Math.max(tokens, Math.ceil(budget * leaseShare));
+        int granted;
+        try {
+            granted = leases.lease(subject, window, leaseWindow, leaseSize, (int) Math.min(budget, Integer.MAX_VALUE));
+        } catch (Exception e) {
+            nextLeaseProbe.set(now + leaseBackoff.toNanos());
+            if (isLeasingDown.compareAndSet(false, true))
+                Log.errorf("Can`t lease rate limit tokens, falling back to the local limit: %s", e.getMessage());
+            return true;
+        }
+
+        if (isLeasingDown.compareAndSet(true, false)) Log.info("Rate limit tokens are leased again.");
+        limiter.addLease(granted, window);
+        return limiter.trySpendLease(tokens, window);
+    }
+
+    /**
+     * Removes buckets which were not used longer than idle timeout. Idle timeout is always longer than
+     * a full refill of the bucket, so eviction never grants a budget the user wouldn't have anyway.
+     */
+    private void sweep(long now) {
+        long scheduled = nextSweep.get();
+        if (scheduled != Long.MIN_VALUE && now - scheduled < 0) return;
+
+        long idleNanos = Math.max(idleTimeout.toNanos(), TokenBucket.REFILL_PERIOD);
+        if (!nextSweep.compareAndSet(scheduled, now + idleNanos)) return;
+        if (scheduled == Long.MIN_VALUE) return;
+
+        limiters.values().removeIf(limiter -> limiter.isIdle(now, idleNanos));
+    }
+
+    /**
+     * Token bucket refilled continuously up to {@code capacity} tokens per second,
+     * together with tokens leased from the global budget for the current lease window.
+     * Footprint is constant and does not depend on the count of accepted messages.
+     */
+    static class TokenBucket {
+        static final long REFILL_PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+        final int capacity;
+        final double tokensPerNano;
+        private double tokens;
+        private long lastRefill;
+        private int leased;
+        private long leaseWindow = Long.MIN_VALUE;
 
         /**
-         * Constructs a SlidingWindowRateLimiter with the specified threshold.
+         * Constructs a TokenBucket with the specified capacity.
          *
-         * @param threshold the maximum number of requests allowed per window.
+         * @param capacity the maximum number of tokens, refilled per second.
+         * @param now the current value of nano clock.
          */
-        SWRateLimiter(int threshold) {
-            this.threshold = threshold;
+        TokenBucket(int capacity, long now) {
+            this.capacity = capacity;
+            this.tokensPerNano = (double) capacity / REFILL_PERIOD;
+            this.tokens = capacity;
+            this.lastRefill = now;
         }
 
         /**
-         * Tries to acquire permission for a request based on the rate limit.
+         * Tries to take the specified count of tokens.
          *
          * @return true if the request is within the rate limit; false otherwise.
          */
-        boolean tryAcquire() {
-            long currentTime = System.currentTimeMillis();
-            while (!log.isEmpty() && currentTime - log.peek() > windowUnit) log.poll();
+        synchronized boolean tryAcquire(int cost, long now) {
+            refill(now);
+            if (tokens < cost) return false;
+
+            tokens -= cost;
+            return true;
+        }
+
+        /**
+         * Returns tokens of a request which was rejected by the global budget.
+         */
+        synchronized void refund(int cost) {
+            tokens = Math.min(capacity, tokens + cost);
+        }
+
+        synchronized boolean trySpendLease(int cost, long window) {
+            if (leaseWindow != window || leased < cost) return false;
+
+            leased -= cost;
+            return true;
+        }
 
-            if (log.size() < threshold) {
-                log.offer(currentTime);
-                return true;
+        synchronized void addLease(int granted, long window) {
+            if (leaseWindow != window) {
+                leaseWindow = window;
+                leased = 0;
             }
-            return false;
+
+            leased += granted;
+        }
+
+        synchronized boolean isIdle(long now, long idleNanos) {
+            return now - lastRefill >= idleNanos;
+        }
+
+        private void refill(long now) {
+            long elapsed = now - lastRefill;
+            if (elapsed <= 0) return;
+
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefill = now;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.infrastructure.dal.cache.SessionStorage;
+import jakarta.websocket.Session;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Replies to the last {@link #WINDOW} client requests of a session, so a retried request receives the reply
+ * of the first attempt instead of being executed again.
+ * <p>
+ * Not thread safe: messages of a session are handled one by one by its {@link SessionMailbox}.
+ */
+public final class RecentRequests {
+
+    public static final int WINDOW = 32;
+
+    private final String[] requestIds = new String[WINDOW];
+
+    private final Message[] replies = new Message[WINDOW];
+
+    private int next;
+
+    public static RecentRequests of(final Session session) {
+        return (RecentRequests) session.getUserProperties()
+                .computeIfAbsent(SessionStorage.SessionProperties.RECENT_REQUESTS.key(), key -> new RecentRequests());
+    }
+
+    /**
+     * @return reply to the request with the same id, empty if there was no such request within the window
+     */
+    public Optional<Message> replyTo(final String requestId) {
+        for (int i = 0; i < WINDOW; i++) {
+            if (Objects.equals(requestIds[i], requestId)) return Optional.of(replies[i]);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Remembers the reply, evicting the oldest one when the window is full.
+     */
+    public void record(final String requestId, final Message reply) {
+        Objects.requireNonNull(requestId);
+        Objects.requireNonNull(reply);
+
+        requestIds[next] = requestId;
+        replies[next] = reply;
+        next = (next + 1) % WINDOW;
+    }
+}
@@ -0,0 +1,178 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.domain.user.entities.User;
+import jakarta.websocket.Session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static core.project.messaging.application.util.WSUtilities.sendMessage;
+
+/**
+ * Ring of the last frames delivered to a user, every frame is stamped with the next sequence number of the user stream.
+ * All devices of the user connected to this node share the stream and receive the same frames with the same numbers.
+ * <p>
+ * Stamping, recording and enqueueing of a frame happen under one lock, so sequence numbers reach the client in order
+ * and replay after resume can`t interleave with new frames. Frames are sent only to the sessions attached to the stream:
+ * a session receives the resume token first, under the same lock, and then every frame after it. Frames routed while
+ * a session is not attached yet are recorded and replayed if it resumes, a new session starts after them.
+ * <p>
+ * Only frames routed to the user are sequenced. Replies to requests of a session are not a part of the stream,
+ * a client repeats unanswered requests with the same request id after resume.
+ */
+public final class ReplayBuffer {
+
+    private final String token = UUID.randomUUID().toString();
+
+    private volatile User account;
+
+    private final Message[] frames;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long lastSeq;
+
+    private final List<Session> sessions = new ArrayList<>(2);
+
+    private boolean isExpired;
+
+    private TimingWheel.Timeout expiry;
+
+    public ReplayBuffer(int capacity, User account) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive.");
+
+        this.account = account;
+        this.frames = new Message[capacity];
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public User account() {
+        return account;
+    }
+
+    public long lastSeq() {
+        lock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false if no session is attached, the frame is only recorded then
+     */
+    public boolean deliver(final Message message) {
+        lock.lock();
+        try {
+            Message frame = message.withSeq(++lastSeq);
+            frames[(int) (lastSeq % frames.length)] = frame;
+            for (Session session : sessions) sendMessage(session, frame);
+            return !sessions.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Attaches new device of the user to the current stream and sends it the resume token.
+     *
+     * @return false if buffer is expired
+     */
+    public boolean attach(final Session session, final User account) {
+        lock.lock();
+        try {
+            if (isExpired) return false;
+
+            cancelExpiry();
+            this.account = account;
+            if (!sessions.contains(session)) sessions.add(session);
+            sendMessage(session, Message.resume(token, lastSeq));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if all frames after the specified sequence number are still in the buffer
+     */
+    public boolean canResume(final long seq) {
+        lock.lock();
+        try {
+            return !isExpired && isInWindow(seq);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Attaches reconnected session of the user and sends it all frames after the specified sequence number
+     * followed by the resume token.
+     *
+     * @return false if buffer is expired or the frames are already overwritten
+     */
+    public boolean resume(final Session newSession, final long seq) {
+        lock.lock();
+        try {
+            if (isExpired || !isInWindow(seq)) return false;
+
+            cancelExpiry();
+            if (!sessions.contains(newSession)) sessions.add(newSession);
+            for (long next = seq + 1; next <= lastSeq; next++) sendMessage(newSession, frames[(int) (next % frames.length)]);
+            sendMessage(newSession, Message.resume(token, lastSeq));
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Detaches closed session, buffer starts to expire when the last session of the user is detached.
+     *
+     * @return false if other sessions of the user are still attached
+     */
+    boolean detach(final Session closed, final TimingWheel.Timeout expiry) {
+        lock.lock();
+        try {
+            sessions.remove(closed);
+            if (!sessions.isEmpty()) return false;
+
+            cancelExpiry();
+            this.expiry = expiry;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return false if the user resumed the session in the meantime
+     */
+    boolean expire() {
+        lock.lock();
+        try {
+            if (!sessions.isEmpty()) return false;
+
+            isExpired = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancelExpiry() {
+        if (expiry != null) expiry.cancel();
+        expiry = null;
+    }
+
+    private boolean isInWindow(final long seq) {
+        return seq >= 0 && seq <= lastSeq && lastSeq - seq <= frames.length;
+    }
+}
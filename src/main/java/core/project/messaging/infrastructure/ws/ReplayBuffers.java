@@ -0,0 +1,116 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.domain.user.entities.User;
+import core.project.messaging.domain.user.value_objects.Username;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.websocket.Session;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Replay buffers of users connected to this node.
+ * <p>
+ * Buffer outlives its session for {@code ws.resume.ttl}, a client that reconnects to the same node in this time
+ * with {@code resume} and {@code seq} query parameters receives only the frames it missed.
+ * <p>
+ * Buffers and sequence numbers are node-local, so resume requires sticky routing of reconnects to the same node.
+ * A resume attempt on another node finds no buffer and the session is initialized as a new one.
+ */
+@ApplicationScoped
+public class ReplayBuffers {
+
+    @ConfigProperty(name = "ws.resume.window", defaultValue = "64")
+    int window;
+
+    @ConfigProperty(name = "ws.resume.ttl", defaultValue = "PT2M")
+    Duration ttl;
+
+    private final TimingWheel timingWheel;
+
+    private final ConcurrentHashMap<Username, ReplayBuffer> buffers = new ConcurrentHashMap<>();
+
+    ReplayBuffers(TimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
+    }
+
+    /**
+     * @return buffer which the session is able to resume, according to its query parameters
+     */
+    public Optional<ReplayBuffer> lookup(final Username username, final Session session) {
+        String token = parameter(session, "resume");
+        String seq = parameter(session, "seq");
+        if (Objects.isNull(token) || Objects.isNull(seq)) return Optional.empty();
+
+        ReplayBuffer buffer = buffers.get(username);
+        if (buffer == null || !buffer.token().equals(token)) return Optional.empty();
+
+        try {
+            return buffer.canResume(Long.parseLong(seq)) ? Optional.of(buffer) : Optional.empty();
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Resumes the buffer with the new session and sends missed frames followed by resume token.
+     *
+     * @return false if the buffer can`t be resumed anymore
+     */
+    public boolean resume(final ReplayBuffer buffer, final Session session) {
+        String seq = parameter(session, "seq");
+        return Objects.nonNull(seq) && buffer.resume(session, Long.parseLong(seq));
+    }
+
+    /**
+     * Attaches session to the stream of the user, starting a new stream if there is none, and sends the resume token of it.
+     */
+    public void open(final Username username, final User account, final Session session) {
+        while (true) {
+            ReplayBuffer buffer = buffers.computeIfAbsent(username, key -> new ReplayBuffer(window, account));
+            if (buffer.attach(session, account)) return;
+
+            buffers.remove(username, buffer);
+        }
+    }
+
+    /**
+     * Sends message to the sessions attached to the stream of the user, stamped with the next sequence number of it.
+     *
+     * @return false if no session of the user is attached, e.g. all of them are still opening
+     */
+    public boolean deliver(final Username username, final Message message) {
+        ReplayBuffer buffer = buffers.get(username);
+        return buffer != null && buffer.deliver(message);
+    }
+
+    /**
+     * Keeps buffer for {@code ws.resume.ttl} after the last session of the user on this node is closed.
+     */
+    public void detach(final Username username, final Session session) {
+        ReplayBuffer buffer = buffers.get(username);
+        if (buffer == null) return;
+
+        TimingWheel.Timeout expiry = timingWheel.schedule(() -> {
+            if (buffer.expire()) buffers.remove(username, buffer);
+        }, ttl);
+
+        if (!buffer.detach(session, expiry)) expiry.cancel();
+    }
+
+    int size() {
+        return buffers.size();
+    }
+
+    private static String parameter(final Session session, final String name) {
+        List<String> values = session.getRequestParameterMap().get(name);
+        if (Objects.isNull(values) || values.isEmpty()) return null;
+        return values.getFirst();
+    }
+}
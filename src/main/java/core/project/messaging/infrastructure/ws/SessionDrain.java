@@ -0,0 +1,102 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.infrastructure.dal.cache.SessionStorage;
+import io.quarkus.logging.Log;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.websocket.CloseReason;
+import jakarta.websocket.Session;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains web socket sessions of the node on shutdown.
+ * <p>
+ * New sessions are refused immediately. Connected sessions are closed in batches spread over {@code ws.drain.duration},
+ * close reason carries a {@code RECONNECT} hint with a random delay, so clients of the stopped node
+ * do not reconnect to the rest of the cluster at the same moment.
+ */
+@ApplicationScoped
+public class SessionDrain {
+
+    @ConfigProperty(name = "ws.drain.duration", defaultValue = "PT20S")
+    Duration duration;
+
+    @ConfigProperty(name = "ws.drain.batch-size", defaultValue = "200")
+    int batchSize;
+
+    @ConfigProperty(name = "ws.drain.reconnect-jitter", defaultValue = "PT30S")
+    Duration reconnectJitter;
+
+    private volatile boolean isDraining;
+
+    private final TimingWheel timingWheel;
+
+    private final SessionStorage sessionStorage;
+
+    SessionDrain(TimingWheel timingWheel, SessionStorage sessionStorage) {
+        this.timingWheel = timingWheel;
+        this.sessionStorage = sessionStorage;
+    }
+
+    public boolean isDraining() {
+        return isDraining;
+    }
+
+    /**
+     * Refuses session which was opened while the node is draining.
+     */
+    public void refuse(final Session session) {
+        close(session);
+    }
+
+    void onShutdown(@Observes ShutdownEvent event) {
+        isDraining = true;
+
+        List<Session> sessions = new ArrayList<>(sessionStorage.all());
+        if (sessions.isEmpty()) return;
+
+        Collections.shuffle(sessions);
+        int batches = (sessions.size() + batchSize - 1) / batchSize;
+        long interval = duration.toNanos() / batches;
+        Log.infof("Draining %d web socket sessions in %d batches.", sessions.size(), batches);
+
+        CountDownLatch drained = new CountDownLatch(batches);
+        for (int batch = 0; batch < batches; batch++) {
+            List<Session> current = sessions.subList(batch * batchSize, Math.min(sessions.size(), (batch + 1) * batchSize));
+            timingWheel.schedule(() -> {
+                try {
+                    current.forEach(this::close);
+                } finally {
+                    drained.countDown();
+                }
+            }, Duration.ofNanos(interval * batch));
+        }
+
+        try {
+            if (!drained.await(duration.toMillis() + TimeUnit.SECONDS.toMillis(5), TimeUnit.MILLISECONDS)) {
+                Log.warn("Web socket drain is not completed in time, remaining sessions are dropped.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void close(final Session session) {
+        long delay = ThreadLocalRandom.current().nextLong(Math.max(reconnectJitter.toMillis(), 1));
+        try {
+            session.close(new CloseReason(CloseReason.CloseCodes.SERVICE_RESTART, Message.reconnect(delay).asJSON()));
+        } catch (Exception e) {
+            Log.debugf("Close of session %s failed: %s", session.getId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package core.project.messaging.infrastructure.ws;
+
+import io.quarkus.logging.Log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mailbox of a single web socket session.
+ * <p>
+ * Tasks are executed one by one in submission order. At most one virtual thread drains the mailbox at any time,
+ * and it exits as soon as the mailbox is empty.
+ */
+public class SessionMailbox {
+
+    private final int capacity;
+
+    private final MailboxDispatcher dispatcher;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicBoolean isScheduled = new AtomicBoolean();
+
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    SessionMailbox(int capacity, MailboxDispatcher dispatcher) {
+        this.capacity = capacity;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Submits task for execution after all previously submitted tasks of the session.
+     *
+     * @return false if mailbox or node is saturated and task is rejected
+     */
+    public boolean submit(final Runnable task) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        if (!dispatcher.tryAcquire()) {
+            size.decrementAndGet();
+            return false;
+        }
+
+        tasks.offer(task);
+        schedule();
+        return true;
+    }
+
+    /**
+     * Submits task ignoring capacity limits, used for session lifecycle tasks which can`t be rejected.
+     */
+    public void submitAlways(final Runnable task) {
+        size.incrementAndGet();
+        dispatcher.acquire();
+        tasks.offer(task);
+        schedule();
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private void schedule() {
+        if (isScheduled.compareAndSet(false, true)) dispatcher.execute(this::drain);
+    }
+
+    /**
+     * The mailbox is released even if a task throws an {@link Error}, the remaining tasks are drained by a new thread.
+     */
+    private void drain() {
+        try {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    Log.error(e.getMessage(), e);
+                } finally {
+                    size.decrementAndGet();
+                    dispatcher.release();
+                }
+            }
+        } finally {
+            isScheduled.set(false);
+            if (!tasks.isEmpty()) schedule();
+        }
+    }
+}
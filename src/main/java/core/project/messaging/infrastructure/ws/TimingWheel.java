@@ -0,0 +1,173 @@
+package core.project.messaging.infrastructure.ws;
+
+import io.quarkus.logging.Log;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel shared by all session timers of the node.
+ * <p>
+ * Scheduling and cancellation are O(1) and do not depend on the count of timers, a single worker thread
+ * advances the wheel once per tick and hands expired tasks over to virtual threads.
+ * Timers fire with precision of one tick, which is enough for heartbeats and debouncing.
+ */
+@ApplicationScoped
+public class TimingWheel {
+
+    private static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    private final ArrayDeque<Timeout>[] buckets;
+
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean isStarted = new AtomicBoolean();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private volatile boolean isStopped;
+
+    private volatile long startTime;
+
+    private Thread worker;
+
+    private long tick;
+
+    TimingWheel(@ConfigProperty(name = "ws.timing-wheel.tick", defaultValue = "PT1S") Duration tick) {
+        this(tick, DEFAULT_WHEEL_SIZE);
+    }
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(Duration tick, int wheelSize) {
+        if (tick.isNegative() || tick.isZero()) throw new IllegalArgumentException("Tick must be positive.");
+        if (Integer.bitCount(wheelSize) != 1) throw new IllegalArgumentException("Wheel size must be a power of two.");
+
+        this.tickNanos = tick.toNanos();
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) buckets[i] = new ArrayDeque<>();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isStarted.compareAndSet(false, true)) return;
+
+        startTime = System.nanoTime();
+        worker = Thread.ofPlatform().daemon().name("timing-wheel").start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        isStopped = true;
+        if (worker != null) worker.interrupt();
+        executor.shutdown();
+    }
+
+    /**
+     * Schedules task to be executed after the specified delay.
+     */
+    public Timeout schedule(Runnable task, Duration delay) {
+        start();
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + Math.max(delay.toNanos(), 0));
+        pending.offer(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (!isStopped) {
+            long deadline = startTime + tickNanos * (tick + 1);
+            long sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                LockSupport.parkNanos(sleep);
+                continue;
+            }
+
+            transferPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.isCancelled()) continue;
+
+            long calculated = timeout.deadline / tickNanos;
+            timeout.rounds = (calculated - tick) / buckets.length;
+            long ticks = Math.max(calculated, tick);
+            buckets[(int) (ticks & mask)].offer(timeout);
+        }
+    }
+
+    private void expire(ArrayDeque<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+                continue;
+            }
+            if (timeout.rounds > 0) {
+                timeout.rounds--;
+                continue;
+            }
+
+            iterator.remove();
+            if (timeout.expire()) {
+                try {
+                    executor.execute(timeout.task);
+                } catch (Exception e) {
+                    Log.error(e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    public static final class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long rounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * @return false if task is already executed or cancelled
+         */
+        public boolean cancel() {
+            return state.compareAndSet(WAITING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        private boolean expire() {
+            return state.compareAndSet(WAITING, EXPIRED);
+        }
+    }
+}
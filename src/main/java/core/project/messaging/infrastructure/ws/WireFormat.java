@@ -0,0 +1,37 @@
+package core.project.messaging.infrastructure.ws;
+
+import jakarta.websocket.Session;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Frame format of a web socket session, negotiated through the subprotocol or the {@code format} query parameter.
+ */
+public enum WireFormat {
+    JSON("json"),
+    CBOR("cbor");
+
+    private final String subprotocol;
+
+    WireFormat(String subprotocol) {
+        this.subprotocol = subprotocol;
+    }
+
+    public String subprotocol() {
+        return subprotocol;
+    }
+
+    public static WireFormat of(final Session session) {
+        String negotiated = session.getNegotiatedSubprotocol();
+        if (Objects.nonNull(negotiated) && !negotiated.isBlank()) return bySubprotocol(negotiated);
+
+        List<String> format = session.getRequestParameterMap().get("format");
+        if (Objects.isNull(format) || format.isEmpty()) return JSON;
+        return bySubprotocol(format.getFirst());
+    }
+
+    private static WireFormat bySubprotocol(final String subprotocol) {
+        return CBOR.subprotocol.equalsIgnoreCase(subprotocol) ? CBOR : JSON;
+    }
+}
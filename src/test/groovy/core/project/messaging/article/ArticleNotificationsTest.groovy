@@ -0,0 +1,153 @@
+package core.project.messaging.article
+
+import core.project.messaging.application.dto.messaging.Message
+import core.project.messaging.application.service.ArticleNotifications
+import core.project.messaging.domain.commons.containers.Result
+import core.project.messaging.domain.user.value_objects.Username
+import core.project.messaging.infrastructure.dal.cache.PendingNotifications
+import core.project.messaging.infrastructure.dal.repository.PartnershipGraph
+import core.project.messaging.infrastructure.ws.MessageRouter
+import core.project.messaging.infrastructure.ws.ReplayBuffers
+import core.project.messaging.infrastructure.ws.TimingWheel
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class ArticleNotificationsTest extends Specification {
+
+    def wheel = new TimingWheel(Duration.ofMillis(10), 8)
+
+    List<Message> frames = Collections.synchronizedList([])
+
+    Set<Username> online = [new Username("partner")] as Set
+
+    Map<String, Result<List<String>, Throwable>> partnersOf = [:].withDefault { Result.success(["partner"]) }
+
+    List<List> pushed = Collections.synchronizedList([])
+
+    def messageRouter = Stub(MessageRouter) {
+        broadcast(_, _) >> { args ->
+            frames << args[1]
+            (args[0] as Set<Username>).findAll { it in online } as Set
+        }
+    }
+
+    def partnershipGraph = Stub(PartnershipGraph) {
+        partners(_) >> { Username author -> partnersOf[author.username()] }
+    }
+
+    def pendingNotifications = Stub(PendingNotifications) {
+        push(_, _) >> { args -> pushed << [args[0] as Set, args[1]] }
+    }
+
+    def replayBuffers = Mock(ReplayBuffers)
+
+    def notifications = new ArticleNotifications(wheel, messageRouter, partnershipGraph, pendingNotifications, replayBuffers)
+
+    def conditions = new PollingConditions(timeout: 2)
+
+    def setup() {
+        notifications.coalesceWindow = Duration.ofMillis(50)
+        notifications.pendingPerConnect = 100
+        wheel.start()
+    }
+
+    def cleanup() {
+        wheel.stop()
+    }
+
+    def "should send a burst of more than one frame of articles in several frames"() {
+        given:
+        def author = new Username("author")
+        def articleIds = (1..45).collect { UUID.randomUUID() }
+
+        when:
+        articleIds.each { notifications.published(author, it) }
+
+        then:
+        conditions.eventually {
+            assert frames.collect { it.items().size() }.sort() == [5, 20, 20]
+        }
+        frames.every { it.partner() == "author" }
+        frames.collectMany { it.items()*.message() } as Set == articleIds*.toString() as Set
+    }
+
+    def "should send a burst which is not full once after the coalesce window"() {
+        given:
+        def author = new Username("author")
+
+        when:
+        3.times { notifications.published(author, UUID.randomUUID()) }
+
+        then:
+        conditions.eventually {
+            assert frames.size() == 1
+        }
+        frames[0].items().size() == 3
+
+        when:
+        sleep(100)
+
+        then:
+        frames.size() == 1
+    }
+
+    def "should keep bursts of different authors apart"() {
+        given:
+        def first = UUID.randomUUID()
+        def second = UUID.randomUUID()
+
+        when:
+        notifications.published(new Username("alice"), first)
+        notifications.published(new Username("bob"), second)
+
+        then:
+        conditions.eventually {
+            assert frames.size() == 2
+        }
+        frames.collectEntries { [(it.partner()): it.items()*.message()] } == [alice: [first.toString()], bob: [second.toString()]]
+    }
+
+    def "should keep articles for partners which are offline"() {
+        given:
+        partnersOf["author"] = Result.success(["partner", "offline"])
+        def articleId = UUID.randomUUID()
+
+        when:
+        notifications.published(new Username("author"), articleId)
+
+        then:
+        conditions.eventually {
+            assert pushed == [[[new Username("offline")] as Set, ["author:$articleId".toString()]]]
+        }
+        frames.size() == 1
+    }
+
+    def "should drop the burst when partners of the author can not be loaded"() {
+        given:
+        partnersOf["author"] = Result.failure(new IllegalStateException("Connection is closed."))
+
+        when:
+        notifications.published(new Username("author"), UUID.randomUUID())
+        sleep(200)
+
+        then:
+        frames.isEmpty()
+        pushed.isEmpty()
+    }
+
+    def "should send pending articles as one frame per author"() {
+        given:
+        def user = new Username("partner")
+        pendingNotifications.drain(user, 100) >> ["alice:1", "bob:2", "alice:3", "broken"]
+
+        when:
+        notifications.sendPending(user)
+
+        then:
+        1 * replayBuffers.deliver(user, { it.partner() == "alice" && it.items()*.message() == ["1", "3"] })
+        1 * replayBuffers.deliver(user, { it.partner() == "bob" && it.items()*.message() == ["2"] })
+        0 * replayBuffers.deliver(*_)
+    }
+}
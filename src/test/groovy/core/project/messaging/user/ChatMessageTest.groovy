@@ -0,0 +1,36 @@
+package core.project.messaging.user
+
+import core.project.messaging.domain.commons.exceptions.IllegalDomainArgumentException
+import core.project.messaging.domain.user.value_objects.ChatMessage
+import core.project.messaging.domain.user.value_objects.Username
+import spock.lang.Specification
+
+import java.time.LocalDateTime
+
+class ChatMessageTest extends Specification {
+
+    def "should share conversation regardless of who writes first"() {
+        given:
+        def alice = new Username("alice")
+        def bob = new Username("bob")
+
+        expect:
+        ChatMessage.conversation(alice, bob) == ChatMessage.conversation(bob, alice)
+        ChatMessage.conversation(alice, bob) == "alice:bob"
+    }
+
+    def "should reject invalid chat message"() {
+        when:
+        new ChatMessage("alice:bob", seq, new Username("alice"), new Username("bob"), text, LocalDateTime.now())
+
+        then:
+        thrown(IllegalDomainArgumentException)
+
+        where:
+        seq | text
+        0   | "Hi"
+        1   | " "
+        1   | null
+        1   | "a" * (ChatMessage.MAX_TEXT_LENGTH + 1)
+    }
+}
@@ -0,0 +1,132 @@
+package core.project.messaging.user
+
+import core.project.messaging.domain.commons.containers.Result
+import core.project.messaging.domain.user.value_objects.ChatMessage
+import core.project.messaging.domain.user.value_objects.Username
+import core.project.messaging.infrastructure.dal.repository.JdbcInboundChatRepository
+import io.opentelemetry.api.metrics.LongCounter
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+import java.time.LocalDateTime
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class JdbcInboundChatRepositoryTest extends Specification {
+
+    static final int COLUMNS = 6
+
+    List<List<Long>> persisted = Collections.synchronizedList([])
+
+    List<List<Long>> attempted = Collections.synchronizedList([])
+
+    List<Long> attemptedAt = Collections.synchronizedList([])
+
+    Closure<Boolean> isFailing = { batch -> false }
+
+    def dropped = Mock(LongCounter)
+
+    def inserts = { String sql, Object[] params ->
+        def batch = (0..<params.length.intdiv(COLUMNS)).collect { params[it * COLUMNS + 1] as Long }
+        attempted << batch
+        attemptedAt << System.nanoTime()
+        assert sql == JdbcInboundChatRepository.batchSQL(batch.size())
+        if (isFailing(batch)) return Result.failure(new IllegalStateException("Connection is closed."))
+
+        persisted << batch
+        return Result.success(true)
+    } as JdbcInboundChatRepository.Inserts
+
+    def repository = new JdbcInboundChatRepository(inserts, dropped)
+
+    def conditions = new PollingConditions(timeout: 5)
+
+    def setup() {
+        repository.capacity = 1024
+        repository.batchSize = 3
+        repository.maxAttempts = 3
+        repository.retryBackoff = Duration.ofMillis(20)
+    }
+
+    def cleanup() {
+        if (repository.isRunning) repository.stop()
+    }
+
+    def "should write messages buffered while the writer was busy in full batches"() {
+        given:
+        def release = new CountDownLatch(1)
+        isFailing = { batch -> release.await(5, TimeUnit.SECONDS); false }
+        repository.start()
+
+        when:
+        repository.append(message(1))
+        conditions.eventually { assert attempted.size() == 1 }
+        (2..8).each { repository.append(message(it)) }
+        release.countDown()
+
+        then:
+        conditions.eventually { assert persisted == [[1], [2, 3, 4], [5, 6, 7], [8]] }
+        0 * dropped.add(_)
+    }
+
+    def "should retry failed batch with exponential backoff"() {
+        given:
+        int failures = 2
+        isFailing = { batch -> failures-- > 0 }
+        repository.start()
+
+        when:
+        repository.append(message(1))
+
+        then:
+        conditions.eventually { assert persisted == [[1]] }
+        attempted == [[1], [1], [1]]
+        TimeUnit.NANOSECONDS.toMillis(attemptedAt[1] - attemptedAt[0]) >= 20
+        TimeUnit.NANOSECONDS.toMillis(attemptedAt[2] - attemptedAt[1]) >= 40
+        0 * dropped.add(_)
+    }
+
+    def "should persist every message once and drop batch only after the last attempt"() {
+        given:
+        Set<List<Long>> failedOnce = Collections.synchronizedSet([] as Set)
+        isFailing = { batch -> 1L in batch || failedOnce.add(batch) }
+        repository.start()
+
+        when:
+        repository.append(message(1))
+        conditions.eventually { assert attempted.size() == 3 }
+        (2..20).each { repository.append(message(it)) }
+
+        then:
+        conditions.eventually { assert persisted.flatten().size() == 19 }
+        persisted.flatten() == (2L..20L).toList()
+        attempted.count { it == [1L] } == 3
+        persisted.every { batch -> attempted.count { it == batch } == 2 }
+        1 * dropped.add(1)
+        0 * dropped.add(_)
+    }
+
+    def "should write batch being retried and buffered messages on shutdown"() {
+        given:
+        boolean failing = true
+        isFailing = { batch -> failing }
+        repository.retryBackoff = Duration.ofMinutes(1)
+        repository.start()
+
+        when:
+        repository.append(message(1))
+        conditions.eventually { assert attempted.size() == 1 }
+        (2..5).each { repository.append(message(it)) }
+        failing = false
+        repository.stop()
+
+        then:
+        persisted == [[1], [2, 3, 4], [5]]
+        0 * dropped.add(_)
+    }
+
+    private static ChatMessage message(long seq) {
+        new ChatMessage("alice:bob", seq, new Username("alice"), new Username("bob"), "message $seq", LocalDateTime.now())
+    }
+}
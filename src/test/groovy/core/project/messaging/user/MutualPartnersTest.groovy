@@ -0,0 +1,85 @@
+package core.project.messaging.user
+
+import core.project.messaging.infrastructure.dal.repository.MutualPartners
+import spock.lang.Specification
+
+class MutualPartnersTest extends Specification {
+
+    def "should return candidates with the most mutual partners first"() {
+        given:
+        def counts = new MutualPartners()
+        def ids = (1..4).collect { new UUID(0, it) }
+        counts.change(ids[0], "user", 1)
+        counts.change(ids[1], "user", 1)
+        counts.change(ids[1], "user", 1)
+        counts.change(ids[2], "user", 1)
+        counts.change(ids[2], "user", 1)
+        counts.change(ids[2], "user", 1)
+        counts.change(ids[3], "user", 1)
+
+        when:
+        def top = counts.top(3, { it == ids[3] })
+
+        then:
+        top*.id() == [ids[2], ids[1], ids[0]]
+        top*.mutualPartners() == [3, 2, 1]
+    }
+
+    def "should drop the cached top when counts change"() {
+        given:
+        def counts = new MutualPartners()
+        def first = new UUID(0, 1)
+        def second = new UUID(0, 2)
+        counts.change(first, "user", 1)
+        counts.change(second, "user", 1)
+        counts.change(second, "user", 1)
+
+        expect:
+        counts.top(1, { false })*.id() == [second]
+
+        when:
+        counts.change(second, "user", -1)
+        counts.change(second, "user", -1)
+
+        then:
+        counts.score(second) == 0
+        counts.top(MutualPartners.TOP_K + 1, { false })*.id() == [first]
+    }
+
+    def "should scan counts again only when a change reaches the top"() {
+        given:
+        def counts = new MutualPartners()
+        def ids = (1..MutualPartners.TOP_K + 5).collect { new UUID(0, it) }
+        ids.eachWithIndex { id, i -> (i + 1).times { counts.change(id, "user", 1) } }
+        def scans = 0
+        def isExcluded = { scans++; false }
+        counts.top(MutualPartners.TOP_K, isExcluded)
+        def scansOfSelection = scans
+
+        when: "a candidate below the threshold rises but does not pass it"
+        counts.change(ids[0], "user", 1)
+        def top = counts.top(MutualPartners.TOP_K, isExcluded)
+
+        then:
+        scans == scansOfSelection
+        top.size() == MutualPartners.TOP_K
+        !(ids[0] in top*.id())
+
+        when: "a candidate of the top rises"
+        counts.change(ids[5], "user", 100)
+        top = counts.top(1, isExcluded)
+
+        then:
+        scans == scansOfSelection
+        top*.id() == [ids[5]]
+        top*.mutualPartners() == [106]
+
+        when: "a candidate from outside passes the threshold"
+        counts.change(ids[1], "user", 200)
+        top = counts.top(1, isExcluded)
+
+        then:
+        scans == 2 * scansOfSelection
+        top*.id() == [ids[1]]
+    }
+}
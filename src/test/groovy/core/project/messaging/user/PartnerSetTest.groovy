@@ -0,0 +1,52 @@
+package core.project.messaging.user
+
+import core.project.messaging.infrastructure.dal.repository.PartnerSet
+import spock.lang.Specification
+
+class PartnerSetTest extends Specification {
+
+    def "should add, find and remove partners while growing"() {
+        given:
+        def partners = new PartnerSet(0)
+        def ids = (1..1000).collect { UUID.randomUUID() }
+
+        when:
+        ids.each { partners.add(it) }
+
+        then:
+        partners.size() == 1000
+        ids.every { partners.contains(it) }
+        !partners.add(ids[0])
+
+        when:
+        ids.take(500).each { partners.remove(it) }
+
+        then:
+        partners.size() == 500
+        ids.take(500).every { !partners.contains(it) }
+        ids.drop(500).every { partners.contains(it) }
+        partners.toArray() as Set == ids.drop(500) as Set
+    }
+
+    def "should keep colliding partners reachable after removal"() {
+        given:
+        def partners = new PartnerSet(4)
+        def ids = (1..6).collect { new UUID(0, it) }
+        ids.each { partners.add(it) }
+
+        when:
+        partners.remove(ids[2])
+
+        then:
+        !partners.contains(ids[2])
+        (ids - ids[2]).every { partners.contains(it) }
+    }
+
+    def "should reject nil id"() {
+        when:
+        new PartnerSet(1).add(new UUID(0, 0))
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
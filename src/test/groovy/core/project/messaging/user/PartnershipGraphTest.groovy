@@ -0,0 +1,160 @@
+package core.project.messaging.user
+
+import core.project.messaging.domain.commons.containers.Result
+import core.project.messaging.domain.user.value_objects.Username
+import core.project.messaging.infrastructure.dal.repository.PartnershipGraph
+import core.project.messaging.infrastructure.ws.TimingWheel
+import io.quarkus.redis.datasource.pubsub.PubSubCommands
+import spock.lang.Specification
+
+import java.time.Duration
+import java.time.LocalDateTime
+import java.util.function.Consumer
+
+class PartnershipGraphTest extends Specification {
+
+    long now = 0
+
+    def a = new UUID(0, 1)
+    def b = new UUID(0, 2)
+    def c = new UUID(0, 3)
+    def d = new UUID(0, 4)
+    def e = new UUID(0, 5)
+
+    List<PartnershipGraph.Change> stored = [partnership(a, b), partnership(a, c), partnership(b, d), partnership(c, d), partnership(c, e)]
+
+    int queries = 0
+
+    Closure duringQuery = {}
+
+    Consumer<PartnershipGraph.Change> onChange
+
+    def partnerships = [
+            idOf: { username -> Result.failure(new UnsupportedOperationException()) },
+            of  : { List<UUID> userIds ->
+                queries++
+                def found = stored.findAll { it.userId() in userIds || it.partnerId() in userIds }
+                duringQuery()
+                Result.success(found)
+            }
+    ] as PartnershipGraph.Partnerships
+
+    def pubSubCommands = Mock(PubSubCommands)
+
+    def graph = new PartnershipGraph(partnerships, Mock(TimingWheel), pubSubCommands)
+
+    def setup() {
+        graph.ttl = Duration.ofMinutes(5)
+        graph.maxUsers = 100
+        graph.clock = { now }
+        pubSubCommands.subscribe(_, _) >> { args ->
+            onChange = args[1]
+            Stub(PubSubCommands.RedisSubscriber)
+        }
+        graph.subscribe()
+    }
+
+    def "should load partners of partners by one query"() {
+        when:
+        def counts = graph.mutualPartnersOf(a).value().getSecond()
+
+        then:
+        queries == 2
+        counts.score(d) == 2
+        counts.score(e) == 1
+        counts.score(a) == 0
+    }
+
+    def "should keep mutual partner counts across a reload and apply the changes it finds"() {
+        given:
+        def counts = graph.mutualPartnersOf(a).value().getSecond()
+        stored << partnership(b, e)
+
+        when: "the user is looked up after the ttl"
+        now += Duration.ofMinutes(6).toNanos()
+        def reloaded = graph.mutualPartnersOf(a).value().getSecond()
+
+        then:
+        queries == 3
+        reloaded.is(counts)
+        counts.score(e) == 1
+
+        when: "the sweep reloads expired partners of the user"
+        graph.sweep()
+
+        then:
+        queries == 4
+        counts.score(e) == 2
+        counts.score(d) == 2
+        graph.mutualPartnersOf(a).value().getSecond().is(counts)
+        queries == 4
+    }
+
+    def "should apply changes received from other nodes to loaded partners"() {
+        given:
+        graph.contains(a, b)
+
+        when:
+        onChange.accept(partnership(a, e))
+        onChange.accept(removal(a, b))
+
+        then:
+        graph.contains(a, e).value()
+        !graph.contains(a, b).value()
+        queries == 1
+    }
+
+    def "should replay changes received while partners were being loaded"() {
+        given:
+        duringQuery = {
+            duringQuery = {}
+            onChange.accept(partnership(a, e))
+            onChange.accept(removal(a, b))
+        }
+
+        when:
+        def hasE = graph.contains(a, e).value()
+        def hasB = graph.contains(a, b).value()
+
+        then:
+        queries == 1
+        hasE
+        !hasB
+    }
+
+    def "should keep mutual partner counts when a change made on this node comes back through the channel"() {
+        given:
+        def counts = graph.mutualPartnersOf(a).value().getSecond()
+
+        when:
+        graph.added(b, new Username("user2"), e, new Username("user5"), LocalDateTime.now())
+
+        then:
+        1 * pubSubCommands.publish("Partnership changes", { it.userId() == b && it.partnerId() == e }) >> { args -> onChange.accept(args[1]) }
+        counts.score(e) == 2
+        counts.score(d) == 2
+    }
+
+    def "should load partners again when more changes were received during the query than the log holds"() {
+        given:
+        duringQuery = {
+            duringQuery = {}
+            1025.times { onChange.accept(partnership(new UUID(1, it), new UUID(2, it))) }
+        }
+
+        when:
+        def hasB = graph.contains(a, b).value()
+
+        then:
+        queries == 2
+        hasB
+    }
+
+    private static PartnershipGraph.Change removal(UUID user, UUID partner) {
+        new PartnershipGraph.Change(user, "user$user.leastSignificantBits", partner, "user$partner.leastSignificantBits", false, 0)
+    }
+
+    private static PartnershipGraph.Change partnership(UUID user, UUID partner) {
+        new PartnershipGraph.Change(user, "user$user.leastSignificantBits", partner, "user$partner.leastSignificantBits", true, 0)
+    }
+}
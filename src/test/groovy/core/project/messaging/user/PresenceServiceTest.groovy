@@ -0,0 +1,116 @@
+package core.project.messaging.user
+
+import core.project.messaging.application.dto.messaging.Message
+import core.project.messaging.application.service.PresenceService
+import core.project.messaging.domain.commons.containers.Result
+import core.project.messaging.domain.user.value_objects.Username
+import core.project.messaging.infrastructure.dal.repository.PartnershipGraph
+import core.project.messaging.infrastructure.ws.MessageRouter
+import core.project.messaging.infrastructure.ws.TimingWheel
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.time.Duration
+
+class PresenceServiceTest extends Specification {
+
+    def wheel = new TimingWheel(Duration.ofMillis(10), 8)
+
+    List<String> notified = Collections.synchronizedList([])
+
+    List<Username> evicted = Collections.synchronizedList([])
+
+    boolean isOnlineElsewhere = false
+
+    def messageRouter = Stub(MessageRouter) {
+        broadcast(_, _) >> { args -> notified << (args[1] as Message).message(); args[0] as Set }
+        isOnline(_) >> { isOnlineElsewhere }
+    }
+
+    def partnershipGraph = Stub(PartnershipGraph) {
+        partners(_) >> Result.success(["partner"])
+        evict(_) >> { Username username -> evicted << username }
+    }
+
+    def presenceService = new PresenceService(messageRouter, partnershipGraph, wheel)
+
+    def alice = new Username("alice")
+
+    def setup() {
+        presenceService.debounce = Duration.ofMillis(50)
+        wheel.start()
+    }
+
+    def cleanup() {
+        wheel.stop()
+    }
+
+    def "should notify partners about offline user after the debounce"() {
+        given:
+        presenceService.online(alice)
+
+        when:
+        presenceService.offline(alice)
+
+        then:
+        notified == ["ONLINE"]
+        new PollingConditions(timeout: 2).eventually {
+            assert notified == ["ONLINE", "OFFLINE"]
+            assert evicted == [alice]
+        }
+    }
+
+    def "should drop both events when user reconnects within the debounce"() {
+        given:
+        presenceService.online(alice)
+
+        when:
+        presenceService.offline(alice)
+        presenceService.online(alice)
+        sleep(200)
+
+        then:
+        notified == ["ONLINE"]
+        evicted.isEmpty()
+    }
+
+    def "should not notify partners when user is still connected to another node"() {
+        given:
+        isOnlineElsewhere = true
+
+        when:
+        presenceService.offline(alice)
+        sleep(200)
+
+        then:
+        notified.isEmpty()
+        evicted.isEmpty()
+    }
+
+    def "should notify partners once when the last sessions close one by one"() {
+        when:
+        presenceService.offline(alice)
+        presenceService.offline(alice)
+
+        then:
+        new PollingConditions(timeout: 2).eventually {
+            assert notified == ["OFFLINE"]
+        }
+        sleep(100)
+        notified == ["OFFLINE"]
+    }
+
+    def "should notify partners when user comes back after the offline event"() {
+        given:
+        presenceService.offline(alice)
+        new PollingConditions(timeout: 2).eventually {
+            assert notified == ["OFFLINE"]
+        }
+
+        when:
+        presenceService.online(alice)
+
+        then:
+        notified == ["OFFLINE", "ONLINE"]
+    }
+}
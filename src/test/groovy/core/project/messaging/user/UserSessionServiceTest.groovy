@@ -0,0 +1,94 @@
+package core.project.messaging.user
+
+import core.project.messaging.application.service.ArticleNotifications
+import core.project.messaging.application.service.ChatService
+import core.project.messaging.application.service.PresenceService
+import core.project.messaging.application.service.SocketRequestsService
+import core.project.messaging.application.service.UserSessionService
+import core.project.messaging.domain.commons.containers.Result
+import core.project.messaging.domain.user.repositories.OutboundUserRepository
+import core.project.messaging.domain.user.services.PartnershipsService
+import core.project.messaging.domain.user.value_objects.PartnershipRequestsPage
+import core.project.messaging.infrastructure.dal.cache.SessionStorage
+import core.project.messaging.infrastructure.ws.MessageRouter
+import core.project.messaging.infrastructure.ws.ReplayBuffers
+import core.project.messaging.util.TestDataGenerator
+import jakarta.websocket.RemoteEndpoint
+import jakarta.websocket.Session
+import spock.lang.Specification
+
+class UserSessionServiceTest extends Specification {
+
+    def messageRouter = Mock(MessageRouter)
+    def replayBuffers = Mock(ReplayBuffers)
+    def presenceService = Mock(PresenceService)
+    def outboundUserRepository = Stub(OutboundUserRepository)
+    def partnershipsService = Stub(PartnershipsService) {
+        pendingRequests(*_) >> new PartnershipRequestsPage([:], PartnershipRequestsPage.INITIAL_CURSOR)
+    }
+
+    def userSessionService = new UserSessionService(messageRouter, replayBuffers, Stub(SessionStorage), presenceService,
+            Stub(ArticleNotifications), Stub(SocketRequestsService), Stub(ChatService), partnershipsService, outboundUserRepository)
+
+    def user = TestDataGenerator.verifiedUser()
+
+    def setup() {
+        outboundUserRepository.findByUsername(user.username()) >> Result.success(user)
+        replayBuffers.lookup(*_) >> Optional.empty()
+    }
+
+    def "should broadcast presence only for the first session of the user in the cluster"() {
+        given:
+        def session = session()
+
+        when:
+        userSessionService.onOpen(session, user.username())
+
+        then:
+        1 * messageRouter.admit(session, user) >> sessions
+        1 * replayBuffers.open(user.username(), user, session)
+        calls * presenceService.online(user.username())
+
+        where:
+        sessions | calls
+        1        | 1
+        2        | 0
+    }
+
+    def "should not broadcast presence for rejected session"() {
+        given:
+        def session = session()
+
+        when:
+        userSessionService.onOpen(session, user.username())
+
+        then:
+        1 * messageRouter.admit(session, user) >> 0
+        0 * replayBuffers.open(*_)
+        0 * presenceService.online(_)
+    }
+
+    def "should report offline only for admitted session"() {
+        given:
+        def session = session()
+
+        when:
+        userSessionService.onClose(session, user.username())
+
+        then:
+        1 * messageRouter.release(session, user.username()) >> isReleased
+        calls * presenceService.offline(user.username())
+
+        where:
+        isReleased | calls
+        true       | 1
+        false      | 0
+    }
+
+    private Session session() {
+        return Stub(Session) {
+            getUserProperties() >> [:]
+            getAsyncRemote() >> Stub(RemoteEndpoint.Async)
+        }
+    }
+}
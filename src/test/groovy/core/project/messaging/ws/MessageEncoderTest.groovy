@@ -0,0 +1,18 @@
+package core.project.messaging.ws
+
+import core.project.messaging.application.dto.messaging.Message
+import core.project.messaging.application.dto.messaging.RequestResult
+import core.project.messaging.infrastructure.ws.MessageEncoder
+import spock.lang.Specification
+
+class MessageEncoderTest extends Specification {
+
+    def encoder = new MessageEncoder()
+
+    def "should write result payload as its only value"() {
+        expect:
+        encoder.encode(Message.result("1", new RequestResult.Sequence(42))) ==
+                '{"type":"RESULT","message":"OK","requestId":"1","result":42}'
+        encoder.encode(Message.result("2")) == '{"type":"RESULT","message":"OK","requestId":"2"}'
+    }
+}
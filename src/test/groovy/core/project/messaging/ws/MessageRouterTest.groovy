@@ -0,0 +1,119 @@
+package core.project.messaging.ws
+
+import core.project.messaging.application.dto.messaging.Message
+import core.project.messaging.domain.user.value_objects.Username
+import core.project.messaging.infrastructure.dal.cache.SessionDirectory
+import core.project.messaging.infrastructure.dal.cache.SessionStorage
+import core.project.messaging.infrastructure.ws.MessageRouter
+import core.project.messaging.infrastructure.ws.ReplayBuffers
+import core.project.messaging.infrastructure.ws.TimingWheel
+import core.project.messaging.util.TestDataGenerator
+import io.quarkus.redis.datasource.RedisDataSource
+import io.quarkus.redis.datasource.pubsub.PubSubCommands
+import jakarta.websocket.Session
+import spock.lang.Specification
+
+import java.time.Duration
+
+class MessageRouterTest extends Specification {
+
+    def sessionStorage = Mock(SessionStorage)
+    def sessionDirectory = Mock(SessionDirectory)
+    def replayBuffers = Mock(ReplayBuffers)
+    def pubSubCommands = Mock(PubSubCommands)
+
+    def router = new MessageRouter(sessionStorage, sessionDirectory, replayBuffers, Mock(TimingWheel),
+            Stub(RedisDataSource) { pubsub(_) >> pubSubCommands })
+
+    def alice = new Username("alice")
+    def bob = new Username("bob")
+    def carol = new Username("carol")
+    def dave = new Username("dave")
+
+    def message = Message.info("Hello")
+
+    def setup() {
+        router.node = "node-a"
+        router.maxSessionsPerUser = 5
+        router.ownersTtl = Duration.ofMinutes(1)
+    }
+
+    def "should deliver message locally and forward it to other nodes of the addressee"() {
+        when:
+        router.send(alice, message)
+        router.send(alice, message)
+
+        then:
+        2 * sessionStorage.contains(alice) >> true
+        2 * replayBuffers.deliver(alice, message) >> true
+        1 * sessionDirectory.locate(alice) >> (["node-a", "node-b"] as Set)
+        2 * pubSubCommands.publish("Messaging node {node-b}", new MessageRouter.Envelope(["alice"], message))
+        0 * pubSubCommands.publish(*_)
+    }
+
+    def "should locate the addressee again when cached owners expire"() {
+        given:
+        router.ownersTtl = Duration.ZERO
+
+        when:
+        router.send(alice, message)
+        router.send(alice, message)
+
+        then:
+        2 * sessionDirectory.locate(alice) >>> [["node-b"] as Set, ["node-c"] as Set]
+        1 * pubSubCommands.publish("Messaging node {node-b}", _)
+        1 * pubSubCommands.publish("Messaging node {node-c}", _)
+        0 * replayBuffers.deliver(*_)
+    }
+
+    def "should send one envelope per node with all its addressees on broadcast"() {
+        given:
+        sessionStorage.contains(_) >> { Username username -> username == alice }
+        replayBuffers.deliver(alice, message) >> true
+        sessionDirectory.locateAll(_) >> [(alice): ["node-a"] as Set, (bob): ["node-b"] as Set, (carol): ["node-b", "node-c"] as Set]
+
+        when:
+        def reached = router.broadcast([alice, bob, carol, dave], message)
+
+        then:
+        reached == [alice, bob, carol] as Set
+        1 * pubSubCommands.publish("Messaging node {node-b}", new MessageRouter.Envelope(["bob", "carol"], message))
+        1 * pubSubCommands.publish("Messaging node {node-c}", new MessageRouter.Envelope(["carol"], message))
+        0 * pubSubCommands.publish(*_)
+    }
+
+    def "should not count addressee whose local session is not attached to the stream as reached"() {
+        given:
+        sessionStorage.contains(alice) >> true
+        replayBuffers.deliver(alice, message) >> false
+        sessionDirectory.locateAll(_) >> [:]
+
+        expect:
+        router.broadcast([alice], message).isEmpty()
+    }
+
+    def "should deliver routed envelope only to valid addressees"() {
+        when:
+        router.deliver(new MessageRouter.Envelope(["alice", "not a username!"], message))
+
+        then:
+        1 * sessionStorage.contains(alice) >> true
+        1 * replayBuffers.deliver(alice, message) >> true
+        0 * replayBuffers.deliver(*_)
+    }
+
+    def "should unregister session from the directory when it is rejected locally"() {
+        given:
+        def user = TestDataGenerator.verifiedUser()
+        def session = Mock(Session)
+
+        when:
+        def sessions = router.admit(session, user)
+
+        then:
+        1 * sessionDirectory.register(user.username(), "node-a", 5) >> 2
+        1 * sessionStorage.add(session, user, 5) >> false
+        1 * sessionDirectory.unregister(user.username(), "node-a")
+        sessions == 0
+    }
+}
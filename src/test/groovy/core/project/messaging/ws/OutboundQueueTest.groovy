@@ -0,0 +1,154 @@
+package core.project.messaging.ws
+
+import core.project.messaging.application.dto.messaging.Message
+import core.project.messaging.infrastructure.ws.OutboundQueue
+import core.project.messaging.infrastructure.ws.WireFormat
+import io.opentelemetry.api.metrics.LongCounter
+import jakarta.websocket.CloseReason
+import jakarta.websocket.RemoteEndpoint
+import jakarta.websocket.SendHandler
+import jakarta.websocket.SendResult
+import jakarta.websocket.Session
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.util.concurrent.atomic.AtomicLong
+
+class OutboundQueueTest extends Specification {
+
+    static final String PING = "ping"
+
+    def "should write control frames before pending bulk frames"() {
+        given:
+        def written = []
+        def handlers = []
+        def queue = queue(session(written, handlers), 8, OutboundQueue.OverflowPolicy.CLOSE)
+
+        when:
+        queue.offer(Message.presence("partner", true))
+        queue.offer(Message.userInfo("bulk"))
+        queue.offer(Message.error("control"))
+        handlers.removeFirst().onResult(new SendResult())
+        handlers.removeFirst().onResult(new SendResult())
+
+        then:
+        written.size() == 3
+        written[1].contains("control")
+        written[2].contains("bulk")
+    }
+
+    def "should shed bulk frames to admit control frame when queue is full"() {
+        given:
+        def written = []
+        def handlers = []
+        def session = session(written, handlers)
+        def queue = queue(session, 2, OutboundQueue.OverflowPolicy.CLOSE)
+
+        when:
+        queue.offer(Message.presence("partner", true))
+        queue.offer(Message.userInfo("first"))
+        queue.offer(Message.userInfo("second"))
+        queue.offer(Message.error("control"))
+
+        then:
+        0 * session.close(_)
+        queue.depth() == 2
+
+        when:
+        handlers.removeFirst().onResult(new SendResult())
+
+        then:
+        written[1].contains("control")
+    }
+
+    def "should drop bulk frame instead of control frames when queue is full of them"() {
+        given:
+        def queue = queue(session([], []), 2, OutboundQueue.OverflowPolicy.DROP_OLDEST)
+
+        when:
+        queue.offer(Message.presence("partner", true))
+        queue.offer(Message.error("first"))
+        queue.offer(Message.error("second"))
+        queue.offer(Message.userInfo("bulk"))
+
+        then:
+        queue.depth() == 2
+    }
+
+    def "should discard bulk frames on close"() {
+        given:
+        def written = []
+        def handlers = []
+        def queue = queue(session(written, handlers), 8, OutboundQueue.OverflowPolicy.CLOSE)
+
+        when:
+        queue.offer(Message.presence("partner", true))
+        queue.offer(Message.userInfo("bulk"))
+        queue.offer(Message.error("control"))
+        queue.close(new CloseReason(CloseReason.CloseCodes.NORMAL_CLOSURE, "reason"))
+        queue.offer(Message.error("after close"))
+
+        then:
+        queue.depth() == 1
+    }
+
+    def "should send ping requested while a frame is in flight after it, before pending frames"() {
+        given:
+        def written = []
+        def handlers = []
+        def queue = queue(session(written, handlers), 8, OutboundQueue.OverflowPolicy.CLOSE)
+
+        when:
+        queue.offer(Message.userInfo("first"))
+        queue.ping(ByteBuffer.allocate(0))
+        queue.ping(ByteBuffer.allocate(0))
+        queue.offer(Message.userInfo("second"))
+
+        then:
+        written.size() == 1
+
+        when:
+        handlers.removeFirst().onResult(new SendResult())
+
+        then:
+        written.size() == 3
+        written[1] == PING
+        written[2].contains("second")
+    }
+
+    def "should send ping at once when no frame is in flight"() {
+        given:
+        def written = []
+        def handlers = []
+        def queue = queue(session(written, handlers), 8, OutboundQueue.OverflowPolicy.CLOSE)
+
+        when:
+        queue.ping(ByteBuffer.allocate(0))
+        queue.offer(Message.userInfo("first"))
+
+        then:
+        written.size() == 2
+        written[0] == PING
+        written[1].contains("first")
+    }
+
+    private OutboundQueue queue(Session session, int capacity, OutboundQueue.OverflowPolicy policy) {
+        def metrics = new OutboundQueue.Metrics(new AtomicLong(), Stub(LongCounter), Stub(LongCounter), Stub(LongCounter))
+        return new OutboundQueue(session, WireFormat.JSON, capacity, 1, policy, metrics)
+    }
+
+    private Session session(List written, List handlers) {
+        def remote = Stub(RemoteEndpoint.Async) {
+            sendText(_ as String, _ as SendHandler) >> { String frame, SendHandler handler ->
+                written << frame
+                handlers << handler
+            }
+            sendPing(_ as ByteBuffer) >> { written << PING }
+        }
+
+        return Mock(Session) {
+            getAsyncRemote() >> remote
+            getId() >> "session"
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package core.project.messaging.ws
+
+import core.project.messaging.application.dto.messaging.MessageType
+import core.project.messaging.infrastructure.dal.cache.RateLimitLeases
+import core.project.messaging.infrastructure.ws.RateLimiter
+import core.project.messaging.util.TestDataGenerator
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.TimeUnit
+
+class RateLimiterTest extends Specification {
+
+    long now = 0
+
+    def leases = Mock(RateLimitLeases)
+
+    def limiter = new RateLimiter(leases)
+
+    def setup() {
+        limiter.rateLimit = 10
+        limiter.idleTimeout = Duration.ofSeconds(30)
+        limiter.isDistributed = false
+        limiter.leaseWindow = Duration.ofSeconds(10)
+        limiter.leaseShare = 0.25
+        limiter.leaseBackoff = Duration.ofSeconds(5)
+        limiter.clock = { now }
+        limiter.wallClock = { TimeUnit.NANOSECONDS.toMillis(now) }
+    }
+
+    def "should accept messages up to the limit and reject the rest"() {
+        given:
+        def user = TestDataGenerator.verifiedUser()
+
+        expect:
+        (1..10).every { limiter.tryAcquire(user) }
+        !limiter.tryAcquire(user)
+    }
+
+    def "should refill tokens over time"() {
+        given:
+        def user = TestDataGenerator.verifiedUser()
+        (1..10).each { limiter.tryAcquire(user) }
+
+        when:
+        now += TimeUnit.MILLISECONDS.toNanos(100)
+
+        then:
+        limiter.tryAcquire(user)
+        !limiter.tryAcquire(user)
+    }
+
+    def "should charge expensive message types more"() {
+        given:
+        def user = TestDataGenerator.verifiedUser()
+
+        expect:
+        RateLimiter.cost(MessageType.PARTNERSHIP_REQUEST) > RateLimiter.cost(MessageType.INFO)
+        limiter.tryAcquire(user, MessageType.PARTNERSHIP_REQUEST)
+        limiter.tryAcquire(user, MessageType.PARTNERSHIP_REQUEST)
+        !limiter.tryAcquire(user, MessageType.PARTNERSHIP_REQUEST)
+    }
+
+    def "should evict idle limiters"() {
+        given:
+        def first = TestDataGenerator.verifiedUser()
+        def second = TestDataGenerator.verifiedUser()
+        limiter.tryAcquire(first)
+        limiter.tryAcquire(second)
+
+        when:
+        now += TimeUnit.SECONDS.toNanos(31)
+        limiter.tryAcquire(second)
+
+        then:
+        limiter.size() == 1
+    }
+
+    def "should lease tokens from the global budget in batches"() {
+        given:
+        limiter.isDistributed = true
+        def user = TestDataGenerator.verifiedUser()
+
+        when:
+        def accepted = (1..10).every { limiter.tryAcquire(user) }
+        now += TimeUnit.SECONDS.toNanos(2)
+        accepted &= (1..10).every { limiter.tryAcquire(user) }
+
+        then:
+        accepted
+        1 * leases.lease(user.username().username(), 0, Duration.ofSeconds(10), 25, 100) >> 25
+    }
+
+    def "should reject messages when global budget is exhausted"() {
+        given:
+        limiter.isDistributed = true
+        def user = TestDataGenerator.verifiedUser()
+        leases.lease(*_) >> 0
+
+        expect:
+        !limiter.tryAcquire(user)
+    }
+
+    def "should refund local tokens when global budget is exhausted"() {
+        given:
+        limiter.isDistributed = true
+        def user = TestDataGenerator.verifiedUser()
+        leases.lease(*_) >> 0
+        (1..10).each { limiter.tryAcquire(user) }
+
+        when:
+        limiter.isDistributed = false
+
+        then:
+        (1..10).every { limiter.tryAcquire(user) }
+    }
+
+    def "should fall back to the local limit when global budget is unavailable"() {
+        given:
+        limiter.isDistributed = true
+        def user = TestDataGenerator.verifiedUser()
+        leases.lease(*_) >> { throw new IllegalStateException("Redis is down") }
+
+        expect:
+        limiter.tryAcquire(user)
+    }
+
+    def "should skip leasing for the backoff after a failure and probe once after it"() {
+        given:
+        limiter.isDistributed = true
+        def user = TestDataGenerator.verifiedUser()
+
+        when:
+        def accepted = (1..5).every { limiter.tryAcquire(user) }
+
+        then:
+        accepted
+        1 * leases.lease(*_) >> { throw new IllegalStateException("Redis is down") }
+
+        when:
+        now += TimeUnit.SECONDS.toNanos(6)
+        accepted = (1..5).every { limiter.tryAcquire(user) }
+
+        then:
+        accepted
+        1 * leases.lease(*_) >> 25
+    }
+}
@@ -0,0 +1,32 @@
+package core.project.messaging.ws
+
+import core.project.messaging.application.dto.messaging.Message
+import core.project.messaging.infrastructure.ws.RecentRequests
+import spock.lang.Specification
+
+class RecentRequestsTest extends Specification {
+
+    def "should return prior reply for repeated request id"() {
+        given:
+        def recentRequests = new RecentRequests()
+        def reply = Message.userInfo("Invitation is sent.").withRequestId("1")
+        recentRequests.record("1", reply)
+
+        expect:
+        recentRequests.replyTo("1").get().is(reply)
+        recentRequests.replyTo("2").isEmpty()
+    }
+
+    def "should forget the oldest request when the window is full"() {
+        given:
+        def recentRequests = new RecentRequests()
+
+        when:
+        (RecentRequests.WINDOW + 1).times { recentRequests.record("$it", Message.result("$it")) }
+
+        then:
+        recentRequests.replyTo("0").isEmpty()
+        recentRequests.replyTo("1").isPresent()
+        recentRequests.replyTo("${RecentRequests.WINDOW}").isPresent()
+    }
+}
@@ -0,0 +1,143 @@
+package core.project.messaging.ws
+
+import core.project.messaging.application.dto.messaging.Message
+import core.project.messaging.application.dto.messaging.MessageType
+import core.project.messaging.infrastructure.ws.ReplayBuffer
+import jakarta.websocket.RemoteEndpoint
+import jakarta.websocket.Session
+import spock.lang.Specification
+
+class ReplayBufferTest extends Specification {
+
+    def "should stamp delivered frames with consecutive sequence numbers"() {
+        given:
+        def sent = []
+        def buffer = new ReplayBuffer(4, null)
+        buffer.attach(session(sent), null)
+
+        when:
+        3.times { buffer.deliver(Message.info("message $it")) }
+
+        then:
+        sent*.type() == [MessageType.RESUME, MessageType.INFO, MessageType.INFO, MessageType.INFO]
+        sent*.seq() == [0L, 1L, 2L, 3L]
+        buffer.lastSeq() == 3
+    }
+
+    def "should replay only frames after the acknowledged sequence number"() {
+        given:
+        def first = session([])
+        def buffer = new ReplayBuffer(4, null)
+        buffer.attach(first, null)
+        5.times { buffer.deliver(Message.info("message $it")) }
+        buffer.detach(first, null)
+
+        def replayed = []
+        def second = session(replayed)
+
+        when:
+        def isResumed = buffer.resume(second, 2)
+
+        then:
+        isResumed
+        replayed*.seq() == [3L, 4L, 5L, 5L]
+        replayed*.message() == ["message 2", "message 3", "message 4", buffer.token()]
+        replayed.last().type() == MessageType.RESUME
+    }
+
+    def "should not resume when missed frames are already overwritten"() {
+        given:
+        def first = session([])
+        def buffer = new ReplayBuffer(4, null)
+        buffer.attach(first, null)
+        10.times { buffer.deliver(Message.info("message $it")) }
+        buffer.detach(first, null)
+
+        expect:
+        !buffer.canResume(5)
+        buffer.canResume(6)
+        !buffer.canResume(11)
+        !buffer.resume(session([]), 5)
+    }
+
+    def "should share one stream between devices of the user"() {
+        given:
+        def phoneFrames = []
+        def desktopFrames = []
+        def phone = session(phoneFrames)
+        def desktop = session(desktopFrames)
+        def buffer = new ReplayBuffer(4, null)
+        buffer.attach(phone, null)
+
+        when:
+        buffer.deliver(Message.info("before desktop"))
+        buffer.attach(desktop, null)
+        buffer.deliver(Message.info("after desktop"))
+
+        then:
+        phoneFrames.findAll { it.type() == MessageType.INFO }*.seq() == [1L, 2L]
+        desktopFrames*.type() == [MessageType.RESUME, MessageType.INFO]
+        desktopFrames*.seq() == [1L, 2L]
+    }
+
+    def "should expire only when the last session is detached"() {
+        given:
+        def phone = session([])
+        def desktop = session([])
+        def buffer = new ReplayBuffer(4, null)
+        buffer.attach(phone, null)
+        buffer.attach(desktop, null)
+
+        when:
+        def isLastDetached = buffer.detach(phone, null)
+
+        then:
+        !isLastDetached
+        !buffer.expire()
+
+        when:
+        isLastDetached = buffer.detach(desktop, null)
+        def isExpired = buffer.expire()
+
+        then:
+        isLastDetached
+        isExpired
+        !buffer.canResume(0)
+        !buffer.resume(session([]), 0)
+        !buffer.attach(session([]), null)
+    }
+
+    def "should record frames routed before the reconnected session is attached and replay them once in order"() {
+        given:
+        def first = session([])
+        def buffer = new ReplayBuffer(4, null)
+        buffer.attach(first, null)
+        2.times { buffer.deliver(Message.info("message $it")) }
+        buffer.detach(first, null)
+
+        def frames = []
+        def second = session(frames)
+
+        when: "a frame is routed while the new session is admitted but not attached yet"
+        def isDelivered = buffer.deliver(Message.info("message 2"))
+        buffer.resume(second, 2)
+        buffer.deliver(Message.info("message 3"))
+
+        then:
+        !isDelivered
+        frames*.seq() == [3L, 3L, 4L]
+        frames*.type() == [MessageType.INFO, MessageType.RESUME, MessageType.INFO]
+        frames.findAll { it.type() == MessageType.INFO }*.message() == ["message 2", "message 3"]
+    }
+
+    private Session session(List sent) {
+        def remote = Stub(RemoteEndpoint.Async) {
+            sendObject(_) >> { args -> sent << args[0]; null }
+        }
+
+        return Stub(Session) {
+            getUserProperties() >> [:]
+            getAsyncRemote() >> remote
+        }
+    }
+}
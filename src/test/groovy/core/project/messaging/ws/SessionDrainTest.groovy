@@ -0,0 +1,101 @@
+package core.project.messaging.ws
+
+import core.project.messaging.infrastructure.dal.cache.SessionStorage
+import core.project.messaging.infrastructure.ws.SessionDrain
+import core.project.messaging.infrastructure.ws.TimingWheel
+import jakarta.websocket.CloseReason
+import jakarta.websocket.Session
+import spock.lang.Specification
+
+import java.time.Duration
+
+class SessionDrainTest extends Specification {
+
+    def wheel = new TimingWheel(Duration.ofMillis(10), 8)
+
+    def sessionStorage = Stub(SessionStorage)
+
+    def drain = new SessionDrain(wheel, sessionStorage)
+
+    List<CloseReason> reasons = Collections.synchronizedList([])
+
+    List<Long> closedAt = Collections.synchronizedList([])
+
+    def setup() {
+        drain.duration = Duration.ofMillis(200)
+        drain.batchSize = 2
+        drain.reconnectJitter = Duration.ofSeconds(30)
+        wheel.start()
+    }
+
+    def cleanup() {
+        wheel.stop()
+    }
+
+    def "should close all sessions in batches spread over the drain duration"() {
+        given:
+        def sessions = (1..5).collect { closable() }
+        sessionStorage.all() >> sessions
+        def start = System.nanoTime()
+
+        when:
+        drain.onShutdown(null)
+
+        then:
+        drain.isDraining()
+        reasons.size() == 5
+        reasons.every { it.closeCode == CloseReason.CloseCodes.SERVICE_RESTART }
+        reasons.every { (it.reasonPhrase =~ /"type":"RECONNECT","message":"(\d+)"/)[0][1].toLong() < 30_000 }
+
+        and: "the last batch is closed not earlier than two intervals after the start"
+        closedAt.max() - start >= Duration.ofMillis(120).toNanos()
+    }
+
+    def "should close the rest of the batch when one session fails to close"() {
+        given:
+        def broken = Mock(Session) {
+            close(_) >> { throw new IOException("Broken pipe") }
+        }
+        def healthy = closable()
+        sessionStorage.all() >> [broken, healthy]
+
+        when:
+        drain.onShutdown(null)
+
+        then:
+        reasons.size() == 1
+    }
+
+    def "should refuse session with reconnect hint"() {
+        given:
+        def session = closable()
+
+        when:
+        drain.refuse(session)
+
+        then:
+        reasons.size() == 1
+        reasons[0].closeCode == CloseReason.CloseCodes.SERVICE_RESTART
+    }
+
+    def "should only start draining when there are no sessions"() {
+        given:
+        sessionStorage.all() >> []
+
+        when:
+        drain.onShutdown(null)
+
+        then:
+        drain.isDraining()
+        reasons.isEmpty()
+    }
+
+    private Session closable() {
+        return Stub(Session) {
+            close(_) >> { CloseReason reason ->
+                reasons << reason
+                closedAt << System.nanoTime()
+            }
+        }
+    }
+}
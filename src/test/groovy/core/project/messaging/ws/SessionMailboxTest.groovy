@@ -0,0 +1,103 @@
+package core.project.messaging.ws
+
+import core.project.messaging.infrastructure.ws.MailboxDispatcher
+import core.project.messaging.infrastructure.ws.SessionMailbox
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+class SessionMailboxTest extends Specification {
+
+    def dispatcher = new MailboxDispatcher(maxInFlight: 1000, mailboxCapacity: 1000)
+
+    def cleanup() {
+        dispatcher.shutdown()
+    }
+
+    def "should execute tasks of one session in submission order"() {
+        given:
+        def mailbox = new SessionMailbox(1000, dispatcher)
+        def executed = new CopyOnWriteArrayList<Integer>()
+        def latch = new CountDownLatch(500)
+
+        when:
+        (0..<500).each { i ->
+            mailbox.submit {
+                executed.add(i)
+                latch.countDown()
+            }
+        }
+
+        then:
+        latch.await(5, TimeUnit.SECONDS)
+        executed == (0..<500).toList()
+    }
+
+    def "should keep executing tasks after a task throws an error"() {
+        given:
+        def mailbox = new SessionMailbox(10, dispatcher)
+        def release = new CountDownLatch(1)
+        def executed = new CountDownLatch(2)
+
+        when:
+        mailbox.submit { release.await() }
+        mailbox.submit { throw new StackOverflowError() }
+        mailbox.submit { executed.countDown() }
+        release.countDown()
+
+        then: "the task queued behind the error is executed"
+        new PollingConditions(timeout: 5).eventually {
+            assert mailbox.size() == 0
+        }
+
+        when:
+        mailbox.submit { executed.countDown() }
+
+        then:
+        executed.await(5, TimeUnit.SECONDS)
+        new PollingConditions(timeout: 5).eventually {
+            assert dispatcher.inFlight() == 0
+        }
+    }
+
+    def "should reject tasks when mailbox is full"() {
+        given:
+        def mailbox = new SessionMailbox(2, dispatcher)
+        def release = new CountDownLatch(1)
+
+        when:
+        def first = mailbox.submit { release.await() }
+        def second = mailbox.submit {}
+        def third = mailbox.submit {}
+
+        then:
+        first
+        second
+        !third
+
+        cleanup:
+        release.countDown()
+    }
+
+    def "should reject tasks when node is saturated"() {
+        given:
+        def saturated = new MailboxDispatcher(maxInFlight: 1, mailboxCapacity: 10)
+        def mailbox = new SessionMailbox(10, saturated)
+        def release = new CountDownLatch(1)
+
+        when:
+        def first = mailbox.submit { release.await() }
+        def second = new SessionMailbox(10, saturated).submit {}
+
+        then:
+        first
+        !second
+
+        cleanup:
+        release.countDown()
+        saturated.shutdown()
+    }
+}
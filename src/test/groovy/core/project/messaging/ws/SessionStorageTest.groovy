@@ -0,0 +1,83 @@
+package core.project.messaging.ws
+
+import core.project.messaging.infrastructure.dal.cache.SessionStorage
+import core.project.messaging.util.TestDataGenerator
+import jakarta.websocket.Session
+import spock.lang.Specification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+class SessionStorageTest extends Specification {
+
+    def storage = new SessionStorage()
+
+    def "should keep sessions of all devices of the user"() {
+        given:
+        def user = TestDataGenerator.verifiedUser()
+        def phone = session()
+        def desktop = session()
+
+        when:
+        storage.add(phone, user, 5)
+        storage.add(desktop, user, 5)
+
+        then:
+        storage.get(user.username()) == [phone, desktop]
+
+        when:
+        def isRemoved = storage.remove(user.username(), phone)
+
+        then:
+        isRemoved
+        storage.get(user.username()) == [desktop]
+        !storage.remove(user.username(), phone)
+    }
+
+    def "should not exceed the limit of sessions under concurrent admission"() {
+        given:
+        def user = TestDataGenerator.verifiedUser()
+        def limit = 3
+        def admitted = new AtomicInteger()
+        def start = new CountDownLatch(1)
+        def executor = Executors.newVirtualThreadPerTaskExecutor()
+
+        when:
+        def futures = (0..<64).collect {
+            executor.submit {
+                start.await()
+                if (storage.add(session(), user, limit)) admitted.incrementAndGet()
+            }
+        }
+        start.countDown()
+        futures*.get()
+
+        then:
+        admitted.get() == limit
+        storage.get(user.username()).size() == limit
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "should forget the user when the last session is removed"() {
+        given:
+        def user = TestDataGenerator.verifiedUser()
+        def phone = session()
+        storage.add(phone, user, 5)
+
+        when:
+        storage.remove(user.username(), phone)
+
+        then:
+        !storage.contains(user.username())
+        storage.get(user.username()).isEmpty()
+    }
+
+    private Session session() {
+        return Stub(Session) {
+            getUserProperties() >> [:]
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package core.project.messaging.ws
+
+import core.project.messaging.infrastructure.ws.TimingWheel
+import spock.lang.Specification
+
+import java.time.Duration
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class TimingWheelTest extends Specification {
+
+    def wheel = new TimingWheel(Duration.ofMillis(10), 8)
+
+    def setup() {
+        wheel.start()
+    }
+
+    def cleanup() {
+        wheel.stop()
+    }
+
+    def "should execute task not earlier than its delay"() {
+        given:
+        def latch = new CountDownLatch(1)
+        def start = System.nanoTime()
+
+        when:
+        wheel.schedule({ latch.countDown() }, Duration.ofMillis(50))
+
+        then:
+        latch.await(2, TimeUnit.SECONDS)
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 40
+    }
+
+    def "should execute tasks with delay longer than one rotation of the wheel"() {
+        given:
+        def latch = new CountDownLatch(1)
+        def start = System.nanoTime()
+
+        when:
+        wheel.schedule({ latch.countDown() }, Duration.ofMillis(250))
+
+        then:
+        latch.await(2, TimeUnit.SECONDS)
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 240
+    }
+
+    def "should not execute cancelled task"() {
+        given:
+        def executed = new AtomicInteger()
+        def latch = new CountDownLatch(1)
+
+        when:
+        def timeout = wheel.schedule({ executed.incrementAndGet() }, Duration.ofMillis(30))
+        def isCancelled = timeout.cancel()
+        wheel.schedule({ latch.countDown() }, Duration.ofMillis(100))
+
+        then:
+        isCancelled
+        latch.await(2, TimeUnit.SECONDS)
+        executed.get() == 0
+        !timeout.cancel()
+    }
+
+    def "should execute many tasks scheduled concurrently"() {
+        given:
+        def count = 10_000
+        def latch = new CountDownLatch(count)
+
+        when:
+        (0..<count).toList().parallelStream().forEach { i ->
+            wheel.schedule({ latch.countDown() }, Duration.ofMillis(i % 200))
+        }
+
+        then:
+        latch.await(5, TimeUnit.SECONDS)
+    }
+
+    def "should reject wheel size which is not a power of two"() {
+        when:
+        new TimingWheel(Duration.ofMillis(10), 10)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+}
@@ -0,0 +1,152 @@
+package core.project.messaging.infrastructure.dal.cache;
+
+import core.project.messaging.domain.user.value_objects.Username;
+import core.project.messaging.util.PostgresTestResource;
+import core.project.messaging.util.RedisTestResource;
+import io.quarkus.redis.datasource.RedisDataSource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the Lua scripts of {@link RedisSessionDirectory} against a real Redis.
+ */
+@QuarkusTestResource(PostgresTestResource.class)
+@QuarkusTestResource(RedisTestResource.class)
+@QuarkusTest
+public class RedisSessionDirectoryTest {
+
+    private static final Duration ALIVE = Duration.ofMinutes(1);
+
+    private static final Duration SHORT_LIVED = Duration.ofMillis(100);
+
+    @Inject
+    RedisSessionDirectory sessionDirectory;
+
+    @Inject
+    RedisDataSource redisDataSource;
+
+    private String nodeA;
+
+    private String nodeB;
+
+    @BeforeEach
+    void nodes() {
+        String suffix = UUID.randomUUID().toString();
+        nodeA = "test-node-a-" + suffix;
+        nodeB = "test-node-b-" + suffix;
+        sessionDirectory.heartbeat(nodeA, ALIVE);
+        sessionDirectory.heartbeat(nodeB, ALIVE);
+    }
+
+    @Test
+    void registerNeverExceedsLimitAcrossNodes() {
+        Username user = username();
+
+        assertThat(sessionDirectory.register(user, nodeA, 3)).isEqualTo(1);
+        assertThat(sessionDirectory.register(user, nodeB, 3)).isEqualTo(2);
+        assertThat(sessionDirectory.register(user, nodeA, 3)).isEqualTo(3);
+        assertThat(sessionDirectory.register(user, nodeB, 3)).isZero();
+        assertThat(sessionDirectory.locate(user)).containsExactlyInAnyOrder(nodeA, nodeB);
+    }
+
+    @Test
+    void registerIgnoresSessionsOfDeadNodes() throws InterruptedException {
+        Username user = username();
+        sessionDirectory.heartbeat(nodeB, SHORT_LIVED);
+        assertThat(sessionDirectory.register(user, nodeB, 1)).isEqualTo(1);
+
+        awaitExpiry(nodeB);
+
+        assertThat(sessionDirectory.register(user, nodeA, 1)).isEqualTo(1);
+        assertThat(redisDataSource.hash(String.class).hkeys(userKey(user))).containsExactly(nodeA);
+    }
+
+    @Test
+    void unregisterRemovesNodeWithItsLastSession() {
+        Username user = username();
+        sessionDirectory.register(user, nodeA, 5);
+        sessionDirectory.register(user, nodeA, 5);
+
+        sessionDirectory.unregister(user, nodeA);
+        assertThat(sessionDirectory.locate(user)).containsExactly(nodeA);
+        assertThat(redisDataSource.set(String.class).sismember(nodeKey(nodeA), user.username())).isTrue();
+
+        sessionDirectory.unregister(user, nodeA);
+        assertThat(sessionDirectory.locate(user)).isEmpty();
+        assertThat(redisDataSource.set(String.class).sismember(nodeKey(nodeA), user.username())).isFalse();
+    }
+
+    @Test
+    void locateSkipsDeadNodesAndOfflineUsers() throws InterruptedException {
+        Username alice = username();
+        Username bob = username();
+        Username carol = username();
+        sessionDirectory.heartbeat(nodeB, SHORT_LIVED);
+        sessionDirectory.register(alice, nodeA, 5);
+        sessionDirectory.register(alice, nodeB, 5);
+        sessionDirectory.register(bob, nodeB, 5);
+
+        awaitExpiry(nodeB);
+
+        Map<Username, Set<String>> located = sessionDirectory.locateAll(List.of(alice, bob, carol));
+        assertThat(located).containsOnlyKeys(alice);
+        assertThat(located.get(alice)).containsExactly(nodeA);
+        assertThat(redisDataSource.hash(String.class).hkeys(userKey(bob))).isEmpty();
+    }
+
+    @Test
+    void locateUsersOfSeveralBatches() {
+        List<Username> users = IntStream.range(0, 1100).mapToObj(i -> username()).toList();
+        users.forEach(user -> sessionDirectory.register(user, nodeA, 5));
+
+        Map<Username, Set<String>> located = sessionDirectory.locateAll(users);
+        assertThat(located).hasSize(users.size());
+        assertThat(located.values()).allMatch(nodes -> nodes.equals(Set.of(nodeA)));
+    }
+
+    @Test
+    void evictRemovesAllSessionsOfNode() {
+        Username alice = username();
+        Username bob = username();
+        sessionDirectory.register(alice, nodeA, 5);
+        sessionDirectory.register(alice, nodeB, 5);
+        sessionDirectory.register(bob, nodeA, 5);
+
+        sessionDirectory.evict(nodeA);
+
+        assertThat(sessionDirectory.locate(alice)).containsExactly(nodeB);
+        assertThat(sessionDirectory.locate(bob)).isEmpty();
+    }
+
+    private void awaitExpiry(String node) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (redisDataSource.key().exists("Messaging node alive " + node)) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(SHORT_LIVED.toMillis());
+        }
+    }
+
+    private static Username username() {
+        return new Username("user" + UUID.randomUUID().toString().replace("-", ""));
+    }
+
+    private static String userKey(Username username) {
+        return "Session devices " + username.username();
+    }
+
+    private static String nodeKey(String node) {
+        return "Session node " + node;
+    }
+}
@@ -0,0 +1,87 @@
+package core.project.messaging.infrastructure.ws;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import core.project.messaging.application.dto.messaging.Message;
+import core.project.messaging.application.dto.messaging.SystemMessages;
+import jakarta.websocket.EncodeException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares allocations per encoded frame of the previous and the current encoders.
+ * Look at {@code gc.alloc.rate.norm} (bytes per frame) in the report.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=core.project.messaging.infrastructure.ws.MessageEncoderBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageEncoderBenchmark {
+
+    private final ObjectMapper legacyMapper = new ObjectMapper();
+
+    private final MessageEncoder encoder = new MessageEncoder();
+
+    private final MessageBinaryEncoder binaryEncoder = new MessageBinaryEncoder();
+
+    private final Message dynamicMessage = Message.partnershipRequest("User {first} invite you for partnership {hi}.", "first");
+
+    @Benchmark
+    public String legacyDynamic() throws JsonProcessingException {
+        return legacyMapper.writeValueAsString(dynamicMessage);
+    }
+
+    @Benchmark
+    public String legacyConstant() throws JsonProcessingException {
+        return legacyMapper.writeValueAsString(Message.info("Successful connection to messaging"));
+    }
+
+    @Benchmark
+    public String legacyToString() throws JsonProcessingException {
+        return legacyMapper.writerWithDefaultPrettyPrinter().writeValueAsString(dynamicMessage);
+    }
+
+    @Benchmark
+    public String dynamic() throws EncodeException {
+        return encoder.encode(dynamicMessage);
+    }
+
+    @Benchmark
+    public String constant() throws EncodeException {
+        return encoder.encode(SystemMessages.CONNECTED);
+    }
+
+    @Benchmark
+    public String toStringCompact() {
+        return dynamicMessage.toString();
+    }
+
+    @Benchmark
+    public ByteBuffer binaryDynamic() throws EncodeException {
+        return binaryEncoder.encode(dynamicMessage);
+    }
+
+    @Benchmark
+    public ByteBuffer binaryConstant() throws EncodeException {
+        return binaryEncoder.encode(SystemMessages.CONNECTED);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MessageEncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
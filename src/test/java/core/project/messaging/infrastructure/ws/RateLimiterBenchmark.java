@@ -0,0 +1,105 @@
+package core.project.messaging.infrastructure.ws;
+
+import core.project.messaging.application.dto.messaging.MessageType;
+import core.project.messaging.domain.user.entities.User;
+import core.project.messaging.util.TestDataGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares token bucket {@link RateLimiter} with the previous sliding log implementation.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=core.project.messaging.infrastructure.ws.RateLimiterBenchmark},
+ * add {@code -prof gc} to the options to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"10", "1000"})
+    int rateLimit;
+
+    @Param({"1", "10000"})
+    int users;
+
+    private User[] accounts;
+
+    private RateLimiter tokenBucketLimiter;
+
+    private SlidingLogRateLimiter slidingLogLimiter;
+
+    @Setup
+    public void setup() {
+        accounts = new User[users];
+        for (int i = 0; i < users; i++) accounts[i] = TestDataGenerator.verifiedUser();
+
+        tokenBucketLimiter = new RateLimiter((subject, window, windowLength, requested, limit) -> requested);
+        tokenBucketLimiter.rateLimit = rateLimit;
+        tokenBucketLimiter.idleTimeout = Duration.ofMinutes(5);
+        tokenBucketLimiter.isDistributed = false;
+
+        slidingLogLimiter = new SlidingLogRateLimiter(rateLimit);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean tokenBucket() {
+        return tokenBucketLimiter.tryAcquire(nextUser(), MessageType.INFO);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean slidingLog() {
+        return slidingLogLimiter.tryAcquire(nextUser());
+    }
+
+    private User nextUser() {
+        return accounts[ThreadLocalRandom.current().nextInt(users)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimiterBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    /**
+     * Previous implementation: log of timestamps of accepted messages per user.
+     */
+    static class SlidingLogRateLimiter {
+        final int threshold;
+        final long windowUnit = 1000L;
+        final ConcurrentHashMap<UUID, ConcurrentLinkedQueue<Long>> limiters = new ConcurrentHashMap<>();
+
+        SlidingLogRateLimiter(int threshold) {
+            this.threshold = threshold;
+        }
+
+        boolean tryAcquire(User user) {
+            ConcurrentLinkedQueue<Long> log = limiters.computeIfAbsent(user.id(), k -> new ConcurrentLinkedQueue<>());
+            long currentTime = System.currentTimeMillis();
+            while (!log.isEmpty() && currentTime - log.peek() > windowUnit) log.poll();
+
+            if (log.size() < threshold) {
+                log.offer(currentTime);
+                return true;
+            }
+            return false;
+        }
+    }
+}
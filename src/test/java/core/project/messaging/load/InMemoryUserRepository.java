@@ -0,0 +1,97 @@
+package core.project.messaging.load;
+
+import core.project.messaging.domain.commons.containers.Result;
+import core.project.messaging.domain.user.entities.User;
+import core.project.messaging.domain.user.enumerations.PartnersOrder;
+import core.project.messaging.domain.user.repositories.InboundUserRepository;
+import core.project.messaging.domain.user.repositories.OutboundUserRepository;
+import core.project.messaging.domain.user.value_objects.PartnerSuggestion;
+import core.project.messaging.domain.user.value_objects.PartnersPage;
+import core.project.messaging.domain.user.value_objects.Username;
+import core.project.messaging.util.TestDataGenerator;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stand-in for Postgres in load tests: every requested account exists and partnerships are kept in memory,
+ * so the measured latency is the one of the messaging path and Redis.
+ */
+@Alternative
+@ApplicationScoped
+public class InMemoryUserRepository implements OutboundUserRepository, InboundUserRepository {
+
+    private final ConcurrentHashMap<Username, User> users = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Username, Set<Username>> partners = new ConcurrentHashMap<>();
+
+    /**
+     * Pages are always ordered by username, creation time of partnerships is not tracked.
+     */
+    @Override
+    public Result<PartnersPage, Throwable> partners(Username username, PartnersOrder order, String cursor, int limit) {
+        List<String> all = partnersOf(username).stream().map(Username::username).sorted().toList();
+        List<String> page = all.stream().filter(partner -> cursor == null || partner.compareTo(cursor) > 0).limit(limit).toList();
+        String next = page.size() == limit && !page.getLast().equals(all.getLast()) ? page.getLast() : null;
+        return Result.success(new PartnersPage(page, all.size(), next));
+    }
+
+    @Override
+    public Result<List<String>, Throwable> allPartners(Username username) {
+        return Result.success(partnersOf(username).stream().map(Username::username).toList());
+    }
+
+    /**
+     * Counted on every call, load tests do not request suggestions often enough to need an index.
+     */
+    @Override
+    public Result<List<PartnerSuggestion>, Throwable> suggestions(Username username, int limit) {
+        Set<Username> userPartners = partnersOf(username);
+        Map<String, Integer> mutualPartners = new HashMap<>();
+        for (Username partner : userPartners) {
+            for (Username candidate : partnersOf(partner)) {
+                if (!candidate.equals(username) && !userPartners.contains(candidate))
+                    mutualPartners.merge(candidate.username(), 1, Integer::sum);
+            }
+        }
+
+        return Result.success(mutualPartners.entrySet().stream()
+                .map(entry -> new PartnerSuggestion(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingInt(PartnerSuggestion::mutualPartners).reversed()
+                        .thenComparing(PartnerSuggestion::username))
+                .limit(limit)
+                .toList());
+    }
+
+    @Override
+    public boolean havePartnership(User user, User partner) {
+        return partnersOf(user.username()).contains(partner.username());
+    }
+
+    @Override
+    public Result<User, Throwable> findByUsername(Username username) {
+        return Result.success(users.computeIfAbsent(username, key -> TestDataGenerator.user(key, true)));
+    }
+
+    @Override
+    public void addPartnership(User firstUser, User secondUser) {
+        partnersOf(firstUser.username()).add(secondUser.username());
+        partnersOf(secondUser.username()).add(firstUser.username());
+    }
+
+    @Override
+    public void removePartnership(User firstUser, User secondUser) {
+        partnersOf(firstUser.username()).remove(secondUser.username());
+        partnersOf(secondUser.username()).remove(firstUser.username());
+    }
+
+    private Set<Username> partnersOf(Username username) {
+        return partners.computeIfAbsent(username, key -> ConcurrentHashMap.newKeySet());
+    }
+}
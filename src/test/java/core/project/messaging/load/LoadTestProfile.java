@@ -0,0 +1,23 @@
+package core.project.messaging.load;
+
+import io.quarkus.test.junit.QuarkusTestProfile;
+
+import java.util.Map;
+import java.util.Set;
+
+public class LoadTestProfile implements QuarkusTestProfile {
+
+    @Override
+    public Set<Class<?>> getEnabledAlternatives() {
+        return Set.of(InMemoryUserRepository.class);
+    }
+
+    @Override
+    public Map<String, String> getConfigOverrides() {
+        return Map.of(
+                "mp.jwt.verify.publickey", LocalJwtSigner.publicKey(),
+                "mp.jwt.verify.issuer", LocalJwtSigner.ISSUER,
+                "quarkus.log.category.\"core.project.messaging\".level", "WARN"
+        );
+    }
+}
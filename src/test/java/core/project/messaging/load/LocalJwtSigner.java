@@ -0,0 +1,58 @@
+package core.project.messaging.load;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Signs RS256 tokens with a key pair generated for the test run, the public key is exposed to the application
+ * through {@code mp.jwt.verify.publickey}, so load clients need neither a running identity provider nor key files.
+ */
+public final class LocalJwtSigner {
+
+    public static final String ISSUER = "messaging-load-test";
+
+    private static final KeyPair keyPair = generate();
+
+    private static final Base64.Encoder base64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private static final String HEADER = base64URL.encodeToString("{\"alg\":\"RS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private LocalJwtSigner() {}
+
+    public static String publicKey() {
+        return Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    }
+
+    public static String sign(String username, Duration ttl) {
+        long now = Instant.now().getEpochSecond();
+        String claims = """
+                {"iss":"%s","sub":"%s","upn":"%s","groups":["USER"],"iat":%d,"exp":%d}"""
+                .formatted(ISSUER, username, username, now, now + ttl.toSeconds());
+
+        String content = HEADER + "." + base64URL.encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(keyPair.getPrivate());
+            signature.update(content.getBytes(StandardCharsets.US_ASCII));
+            return content + "." + base64URL.encodeToString(signature.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
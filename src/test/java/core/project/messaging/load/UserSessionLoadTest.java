@@ -0,0 +1,310 @@
+package core.project.messaging.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import core.project.messaging.application.dto.messaging.SystemMessages;
+import core.project.messaging.util.PostgresTestResource;
+import core.project.messaging.util.RedisTestResource;
+import io.quarkus.test.common.QuarkusTestResource;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.TestProfile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Load harness of the user session endpoint, disabled unless {@code -Dloadtest=true} is passed.
+ * <p>
+ * Clients are split into pairs: the first client sends partnership request to the second one, which declines it
+ * as soon as the request is received, then the first one sends the next request after the think time.
+ * Latency is the time between sending of the request and receiving of it by the addressee.
+ * Heap per connection includes both server and client side of the socket, as they share the JVM.
+ * <p>
+ * {@code mvn test -Dloadtest=true -Dtest=UserSessionLoadTest -Dloadtest.clients=4000 -Dloadtest.duration=PT60S}
+ */
+@QuarkusTestResource(PostgresTestResource.class)
+@QuarkusTestResource(RedisTestResource.class)
+@QuarkusTest
+@TestProfile(LoadTestProfile.class)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+public class UserSessionLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 2000);
+
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+
+    private static final Duration THINK_TIME = Duration.parse(System.getProperty("loadtest.think-time", "PT0.05S"));
+
+    private static final Duration REJECTION_BACKOFF = Duration.ofSeconds(1);
+
+    private static final int CONCURRENT_HANDSHAKES = 200;
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private static final String RATE_LIMITED = SystemMessages.RATE_LIMITED.message();
+
+    private static final String CONNECTED = SystemMessages.CONNECTED.message();
+
+    @TestHTTPResource("/chessland/user-session")
+    URI endpoint;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final LatencyRecorder latencies = new LatencyRecorder(5_000_000);
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private volatile boolean isRunning;
+
+    @Test
+    void partnershipRequestsUnderLoad() throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapBefore = usedHeap(memory);
+
+        List<Client> clients = connect(CLIENTS - CLIENTS % 2);
+        long heapAfter = usedHeap(memory);
+
+        List<Pair> pairs = new ArrayList<>(clients.size() / 2);
+        for (int i = 0; i + 1 < clients.size(); i += 2) {
+            Pair pair = new Pair(clients.get(i), clients.get(i + 1));
+            clients.get(i).pair = pair;
+            clients.get(i + 1).pair = pair;
+            pairs.add(pair);
+        }
+
+        isRunning = true;
+        long start = System.nanoTime();
+        pairs.forEach(Pair::request);
+        TimeUnit.MILLISECONDS.sleep(DURATION.toMillis());
+        isRunning = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        clients.forEach(client -> client.socket.sendClose(WebSocket.NORMAL_CLOSURE, "Load test is completed."));
+        scheduler.shutdownNow();
+
+        long[] sorted = latencies.sorted();
+        System.out.printf("""
+                        User session load test
+                          connections:          %d
+                          requests sent:        %d
+                          requests delivered:   %d
+                          throughput:           %.1f req/s
+                          latency p50/p99/p999: %.2f / %.2f / %.2f ms
+                          rate limit rejections: %d
+                          errors:               %d
+                          heap per connection:  %d bytes
+                        %n""",
+                clients.size(), sent.get(), sorted.length, sorted.length / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                rejected.get(), errors.get(), (heapAfter - heapBefore) / Math.max(clients.size(), 1));
+
+        assertThat(sorted.length).isPositive();
+    }
+
+    private List<Client> connect(int count) throws InterruptedException {
+        URI uri = URI.create(endpoint.toString().replaceFirst("^http", "ws"));
+        List<Client> clients = new ArrayList<>(count);
+        CountDownLatch connected = new CountDownLatch(count);
+        Semaphore handshakes = new Semaphore(CONCURRENT_HANDSHAKES);
+
+        for (int i = 0; i < count; i++) {
+            Client client = new Client("loadUser" + i, connected);
+            clients.add(client);
+
+            handshakes.acquire();
+            String token = LocalJwtSigner.sign(client.username, DURATION.plusMinutes(5));
+            httpClient.newWebSocketBuilder()
+                    .subprotocols("json")
+                    .buildAsync(URI.create(uri + "?token=" + token), client)
+                    .whenComplete((socket, throwable) -> {
+                        handshakes.release();
+                        if (throwable != null) {
+                            errors.incrementAndGet();
+                            client.markConnected();
+                        }
+                    });
+        }
+
+        if (!connected.await(2, TimeUnit.MINUTES)) throw new IllegalStateException("Clients are not connected in time.");
+        return clients.stream().filter(client -> client.socket != null).toList();
+    }
+
+    private static long usedHeap(MemoryMXBean memory) throws InterruptedException {
+        System.gc();
+        TimeUnit.MILLISECONDS.sleep(200);
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.clamp(index, 0, sorted.length - 1)] / 1e6;
+    }
+
+    private final class Pair {
+        private final Client addresser;
+        private final Client addressee;
+        private volatile long sentAt;
+
+        private Pair(Client addresser, Client addressee) {
+            this.addresser = addresser;
+            this.addressee = addressee;
+        }
+
+        private void request() {
+            if (!isRunning) return;
+
+            sentAt = System.nanoTime();
+            sent.incrementAndGet();
+            addresser.send("""
+                    {"type":"PARTNERSHIP_REQUEST","message":"load","partner":"%s"}""".formatted(addressee.username));
+        }
+
+        private void requestAfter(Duration delay) {
+            if (isRunning) scheduler.schedule(this::request, delay.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void onDelivered() {
+            latencies.record(System.nanoTime() - sentAt);
+            addressee.send("""
+                    {"type":"PARTNERSHIP_DECLINE","partner":"%s"}""".formatted(addresser.username));
+            requestAfter(THINK_TIME);
+        }
+    }
+
+    private final class Client implements WebSocket.Listener {
+        private final String username;
+        private final CountDownLatch connected;
+        private final StringBuilder partial = new StringBuilder();
+        private final AtomicBoolean isConnected = new AtomicBoolean();
+        private volatile WebSocket socket;
+        private volatile Pair pair;
+        private CompletableFuture<WebSocket> sending = CompletableFuture.completedFuture(null);
+
+        private Client(String username, CountDownLatch connected) {
+            this.username = username;
+            this.connected = connected;
+        }
+
+        /**
+         * JDK web socket allows one outstanding send, so frames of the client are chained.
+         */
+        private synchronized void send(String frame) {
+            sending = sending.thenCompose(ignored -> socket.sendText(frame, true))
+                    .exceptionally(throwable -> {
+                        errors.incrementAndGet();
+                        return socket;
+                    });
+        }
+
+        private void markConnected() {
+            if (isConnected.compareAndSet(false, true)) connected.countDown();
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket) {
+            socket = webSocket;
+            webSocket.request(1);
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            partial.append(data);
+            if (last) {
+                String frame = partial.toString();
+                partial.setLength(0);
+                onFrame(frame);
+            }
+
+            webSocket.request(1);
+            return null;
+        }
+
+        private void onFrame(String frame) {
+            JsonNode message;
+            try {
+                message = mapper.readTree(frame);
+            } catch (Exception e) {
+                errors.incrementAndGet();
+                return;
+            }
+
+            String type = message.path("type").asText();
+            String text = message.path("message").asText();
+            switch (type) {
+                case "INFO" -> {
+                    if (CONNECTED.equals(text)) markConnected();
+                }
+                case "PARTNERSHIP_REQUEST" -> {
+                    if (pair != null && pair.addressee == this) pair.onDelivered();
+                }
+                case "ERROR" -> {
+                    if (RATE_LIMITED.equals(text)) rejected.incrementAndGet();
+                    else errors.incrementAndGet();
+
+                    if (pair != null && pair.addresser == this) {
+                        pair.requestAfter(RATE_LIMITED.equals(text) ? REJECTION_BACKOFF : THINK_TIME);
+                    }
+                }
+                default -> {}
+            }
+        }
+
+        @Override
+        public void onError(WebSocket webSocket, Throwable error) {
+            errors.incrementAndGet();
+            markConnected();
+        }
+    }
+
+    /**
+     * Lock-free recorder of latencies in nanoseconds, samples above the capacity are dropped.
+     */
+    private static final class LatencyRecorder {
+        private final long[] samples;
+        private final AtomicInteger size = new AtomicInteger();
+
+        private LatencyRecorder(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        private void record(long nanos) {
+            int index = size.getAndIncrement();
+            if (index < samples.length) samples[index] = nanos;
+        }
+
+        private long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, Math.min(size.get(), samples.length));
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
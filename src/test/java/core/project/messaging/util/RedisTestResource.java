@@ -0,0 +1,30 @@
+package core.project.messaging.util;
+
+import io.quarkus.test.common.QuarkusTestResourceLifecycleManager;
+import org.testcontainers.containers.GenericContainer;
+
+import java.util.Map;
+
+public class RedisTestResource implements QuarkusTestResourceLifecycleManager {
+
+    GenericContainer<?> redisContainer;
+
+    @Override
+    public Map<String, String> start() {
+        redisContainer = new GenericContainer<>("redis:7-alpine")
+                .withExposedPorts(6379);
+
+        redisContainer.start();
+
+        String redisURL = "redis://%s:%s".formatted(redisContainer.getHost(), redisContainer.getMappedPort(6379));
+        return Map.of("quarkus.redis.hosts", redisURL);
+    }
+
+    @Override
+    public void stop() {
+        if (redisContainer != null) {
+            redisContainer.stop();
+            redisContainer = null;
+        }
+    }
+}